@@ -4,8 +4,6 @@ import android.content.Context
 import android.opengl.GLES30
 import android.opengl.GLSurfaceView
 import java.nio.ByteBuffer
-import java.nio.ByteOrder
-import java.nio.FloatBuffer
 import javax.microedition.khronos.egl.EGLConfig
 import javax.microedition.khronos.opengles.GL10
 
@@ -18,15 +16,36 @@ import javax.microedition.khronos.opengles.GL10
  * desc    : This is I420Renderer
 </pre> *
  */
-class I420Renderer(private val mContext: Context) : GLSurfaceView.Renderer {
-    private var mProgram = 0
-    private lateinit var mTextureIds: IntArray
-    private var yuvWidth = 0
-    private var yuvHeight = 0
-    private var yBuffer: ByteBuffer? = null
-    private var uBuffer: ByteBuffer? = null
-    private var vBuffer: ByteBuffer? = null
-    protected var mVertexBuffer: FloatBuffer? = null
+class I420Renderer @JvmOverloads constructor(
+    private val mContext: Context,
+    private val mUploadMode: YuvUploadMode = YuvUploadMode.DIRECT
+) : GLSurfaceView.Renderer {
+    // 着色器程序与四边形，上传、绘制逻辑与多路拼接共用
+    private val mDrawer = YuvFrameDrawer()
+    private val mTextures = YuvPlaneTextures(3)
+    private val mPboUploader = YuvPboUploader()
+    // 旋转、镜像在顶点着色器里通过纹理坐标矩阵完成，设置时整体替换数组
+    @Volatile
+    private var mTexMatrix = YuvTexCoordTransform.IDENTITY
+    // 数字变焦区域，只上传区域内的字节，为 null 时显示整帧
+    @Volatile
+    private var mCrop: YuvCropRect? = null
+    // 没有新帧时重画（旋转、变焦、Surface 变化）直接用纹理里的内容，新上下文或区域变化时才需要重新上传
+    @Volatile
+    private var mUploadPending = true
+    // 相机线程写入、GL 线程读取的三缓冲，双方互不等待
+    private val mMailbox = YuvFrameMailbox()
+    // 暂存、上传、绘制耗时与帧数统计
+    private var mMetrics = YuvPipelineMetrics()
+    // 只上传与上一帧相比变化了的行带，为 null 时每帧整帧上传
+    private var mDirtyTracker: YuvDirtyRegionTracker? = null
+    // 画面尺寸，生产者线程据此决定是否先缩小再上传
+    @Volatile
+    var surfaceWidth = 0
+        private set
+    @Volatile
+    var surfaceHeight = 0
+        private set
     override fun onSurfaceCreated(
         gl: GL10,
         config: EGLConfig
@@ -37,111 +56,147 @@ class I420Renderer(private val mContext: Context) : GLSurfaceView.Renderer {
     override fun onSurfaceChanged(gl: GL10, width: Int, height: Int) {
         // 视距区域设置使用 GLSurfaceView 的宽高
         GLES30.glViewport(0, 0, width, height)
+        surfaceWidth = width
+        surfaceHeight = height
     }
 
     private fun init() {
-        val vertexSource =
-            ShaderUtil.loadFromAssets("vertex.vsh", mContext.resources)
-        val fragmentSource =
-            ShaderUtil.loadFromAssets("fragment.fsh", mContext.resources)
-        mProgram = ShaderUtil.createProgram(vertexSource, fragmentSource)
-        //创建纹理
-        mTextureIds = IntArray(3)
-        GLES30.glGenTextures(mTextureIds.size, mTextureIds, 0)
-        for (i in mTextureIds.indices) {
-            //绑定纹理
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mTextureIds[i])
-            //设置环绕和过滤方式
-            GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_REPEAT)
-            GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_REPEAT)
-            GLES30.glTexParameteri(
-                GLES30.GL_TEXTURE_2D,
-                GLES30.GL_TEXTURE_MIN_FILTER,
-                GLES30.GL_LINEAR
-            )
-            GLES30.glTexParameteri(
-                GLES30.GL_TEXTURE_2D,
-                GLES30.GL_TEXTURE_MAG_FILTER,
-                GLES30.GL_LINEAR
-            )
-        }
-
-        // OpenGL的世界坐标系是 [-1, -1, 1, 1]，纹理的坐标系为 [0, 0, 1, 1]
-        val vertices = floatArrayOf( // 前三个数字为顶点坐标(x, y, z)，后两个数字为纹理坐标(s, t)
-            // 第一个三角形
-            1f, 1f, 0f, 1f, 0f,
-            1f, -1f, 0f, 1f, 1f,
-            -1f, -1f, 0f, 0f, 1f,  // 第二个三角形
-            1f, 1f, 0f, 1f, 0f,
-            -1f, -1f, 0f, 0f, 1f,
-            -1f, 1f, 0f, 0f, 0f
-        )
-        val vbb =
-            ByteBuffer.allocateDirect(vertices.size * 4) // 一个 float 是四个字节
-        vbb.order(ByteOrder.nativeOrder()) // 必须要是 native order
-        mVertexBuffer = vbb.asFloatBuffer()
-        mVertexBuffer?.put(vertices)
+        mDrawer.init(mContext.resources, YuvProgramCache.getInstance(mContext))
+        mDrawer.setMetrics(mMetrics)
+        // 纹理存储在第一帧到来时按分辨率分配，之后只更新内容
+        mTextures.release(false)
+        mPboUploader.release(false)
+        mUploadPending = true
     }
 
+    /**
+     * 拷贝一次到三缓冲的空闲槽位，返回后 i420 可以复用；只能在同一个生产者线程调用
+     */
     fun setYuvData(i420: ByteArray, width: Int, height: Int) {
-        if (yBuffer != null) yBuffer!!.clear()
-        if (uBuffer != null) uBuffer!!.clear()
-        if (vBuffer != null) vBuffer!!.clear()
-
-        // 该函数多次被调用的时，不要每次都new，可以设置为全局变量缓存起来
-        val y = ByteArray(width * height)
-        val u = ByteArray(width * height / 4)
-        val v = ByteArray(width * height / 4)
-        System.arraycopy(i420, 0, y, 0, y.size)
-        System.arraycopy(i420, y.size, u, 0, u.size)
-        System.arraycopy(i420, y.size + u.size, v, 0, v.size)
-        yBuffer = ByteBuffer.wrap(y)
-        uBuffer = ByteBuffer.wrap(u)
-        vBuffer = ByteBuffer.wrap(v)
-        yuvWidth = width
-        yuvHeight = height
+        staged { mMailbox.publish(i420, width, height) }
+    }
+
+    fun setYuvData(i420: ByteBuffer, width: Int, height: Int) {
+        staged { mMailbox.publish(i420, width, height) }
+    }
+
+    /**
+     * 任意 [YuvFormat] 的一帧，NV21 / NV12 不经过 CPU 转换，直接上传 Y 和交错色度两个平面
+     */
+    fun setYuvData(yuv: ByteArray, width: Int, height: Int, format: YuvFormat) {
+        staged { mMailbox.publish(yuv, width, height, format) }
+    }
+
+    fun setYuvData(yuv: ByteBuffer, width: Int, height: Int, format: YuvFormat) {
+        staged { mMailbox.publish(yuv, width, height, format) }
+    }
+
+    /**
+     * 内容不会再改变的一帧（例如只读映射的文件切片），direct buffer 直接上传不拷贝
+     */
+    fun setYuvReference(yuv: ByteBuffer, width: Int, height: Int, format: YuvFormat) {
+        staged { mMailbox.publishReference(yuv, width, height, format) }
+    }
+
+    /**
+     * 带行填充 / 像素间隔的三平面数据（Camera2 YUV_420_888），见 [YuvFrameBuffer.putPlanes]
+     */
+    fun setYuvPlanes(
+        y: ByteBuffer, yRowStride: Int, u: ByteBuffer, v: ByteBuffer,
+        uvRowStride: Int, uvPixelStride: Int, width: Int, height: Int
+    ) {
+        staged { mMailbox.publishPlanes(y, yRowStride, u, v, uvRowStride, uvPixelStride, width, height) }
+    }
+
+    /**
+     * 带行填充的半平面数据（MediaCodec 输出），见 [YuvFrameBuffer.putSemiPlanar]
+     */
+    fun setYuvSemiPlanar(
+        y: ByteBuffer, yRowStride: Int, uv: ByteBuffer, uvRowStride: Int,
+        width: Int, height: Int, format: YuvFormat
+    ) {
+        staged { mMailbox.publishSemiPlanar(y, yRowStride, uv, uvRowStride, width, height, format) }
+    }
+
+    /**
+     * 把 [YuvPresentationQueue] 到期的一帧整个换进三缓冲，不拷贝，返回换下来的空闲帧；
+     * 与 setYuvData 等方法一样只能在同一个生产者线程调用
+     */
+    fun presentFrame(frame: YuvFrameBuffer): YuvFrameBuffer {
+        // 丢帧计数只由生产者线程增加，前后比较就是这次是否覆盖了未绘制的帧
+        val dropped = mMailbox.droppedCount
+        val spare = mMailbox.exchange(frame)
+        mMetrics.onFrameSubmitted(mMailbox.droppedCount != dropped)
+        return spare
+    }
+
+    /**
+     * 设置画面的旋转和镜像，由 GPU 完成，不消耗 CPU；可以在任意线程调用
+     *
+     * @param rotation 顺时针旋转角度 0 / 90 / 180 / 270
+     */
+    fun setDisplayTransform(rotation: Int, flipHorizontal: Boolean, flipVertical: Boolean) {
+        mTexMatrix = YuvTexCoordTransform.matrix(rotation, flipHorizontal, flipVertical)
+    }
+
+    /**
+     * 设置显示区域（源图像坐标，旋转之前），GPU 只上传区域内的字节并放大到整个画面；
+     * 为 null 时显示整帧，可以在任意线程调用
+     */
+    fun setCrop(crop: YuvCropRect?) {
+        mCrop = crop
+        mUploadPending = true
+    }
+
+    /**
+     * 替换统计对象（例如与 PlayManager 共用一个），在 setYuvData 之前调用
+     */
+    fun setMetrics(metrics: YuvPipelineMetrics) {
+        mMetrics = metrics
+        mDrawer.setMetrics(metrics)
+    }
+
+    /**
+     * 内容大部分不变的画面（屏幕共享、监控）只上传变化了的行带，见 [YuvDirtyRegionTracker]；
+     * 在 setYuvData 之前调用，tracker 只能给这一个渲染器使用
+     */
+    fun setDirtyRegionTracker(tracker: YuvDirtyRegionTracker?) {
+        mDirtyTracker = tracker
+    }
+
+    /**
+     * 计时拷贝到三缓冲的耗时并计数，inline 的 lambda 不会分配对象
+     */
+    private inline fun staged(publish: () -> Boolean) {
+        val start = YuvPipelineMetrics.now()
+        val dropped = publish()
+        mMetrics.record(YuvPipelineMetrics.Stage.STAGING, start)
+        mMetrics.onFrameSubmitted(dropped)
     }
 
+    /**
+     * 还没绘制就被新帧覆盖的帧数
+     */
+    fun getDroppedFrameCount(): Long = mMailbox.droppedCount
+
     override fun onDrawFrame(gl: GL10) {
-        if (yBuffer == null || uBuffer == null || vBuffer == null) {
+        val fresh = mMailbox.consume()
+        val frame = mMailbox.front()
+        if (!frame.hasFrame()) {
             return
         }
+        // 先清除标记再读取区域，期间 setCrop 会重新置位，下一次重画时上传
+        val upload = fresh || mUploadPending
+        mUploadPending = false
         GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT) // clear color buffer
-        // 1. 选择使用的程序
-        GLES30.glUseProgram(mProgram)
-        // 2.1 加载纹理y
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE0) //激活纹理0
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mTextureIds[0]) //绑定纹理
-        GLES30.glTexImage2D(
-            GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE, yuvWidth,
-            yuvHeight, 0, GLES30.GL_LUMINANCE, GLES30.GL_UNSIGNED_BYTE, yBuffer
-        ) // 赋值
-        GLES30.glUniform1i(0, 0) // sampler_y的location=0, 把纹理0赋值给sampler_y
-        // 2.2 加载纹理u
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE1)
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mTextureIds[1])
-        GLES30.glTexImage2D(
-            GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE, yuvWidth / 2,
-            yuvHeight / 2, 0, GLES30.GL_LUMINANCE, GLES30.GL_UNSIGNED_BYTE, uBuffer
+        mDrawer.draw(
+            frame, mTextures,
+            if (mUploadMode == YuvUploadMode.PIXEL_BUFFER) mPboUploader else null,
+            mTexMatrix, upload, mCrop, mDirtyTracker
         )
-        GLES30.glUniform1i(1, 1) // sampler_u的location=1, 把纹理1赋值给sampler_u
-        // 2.3 加载纹理v
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE2)
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mTextureIds[2])
-        GLES30.glTexImage2D(
-            GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE, yuvWidth / 2,
-            yuvHeight / 2, 0, GLES30.GL_LUMINANCE, GLES30.GL_UNSIGNED_BYTE, vBuffer
-        )
-        GLES30.glUniform1i(2, 2) // sampler_v的location=2, 把纹理1赋值给sampler_v
-        // 3. 加载顶点数据
-        mVertexBuffer!!.position(0)
-        GLES30.glVertexAttribPointer(0, 3, GLES30.GL_FLOAT, false, 5 * 4, mVertexBuffer)
-        GLES30.glEnableVertexAttribArray(0)
-        mVertexBuffer!!.position(3)
-        GLES30.glVertexAttribPointer(1, 2, GLES30.GL_FLOAT, false, 5 * 4, mVertexBuffer)
-        GLES30.glEnableVertexAttribArray(1)
-        // 4. 绘制
-        GLES30.glDrawArrays(GLES30.GL_TRIANGLES, 0, 6)
+        if (fresh) {
+            mMetrics.onFrameRendered()
+        }
     }
 
     companion object {
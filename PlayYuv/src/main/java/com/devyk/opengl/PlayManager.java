@@ -3,6 +3,9 @@ package com.devyk.opengl;
 import android.content.Context;
 import android.opengl.GLSurfaceView;
 import android.view.ViewGroup;
+import android.view.WindowManager;
+
+import java.nio.ByteBuffer;
 
 /**
  * <pre>
@@ -13,7 +16,7 @@ import android.view.ViewGroup;
  *     desc    : This is PlayYUVUtils 播放 YUV 数据管理类
  * </pre>
  */
-public class PlayManager {
+public class PlayManager implements YuvFrameSink {
     /**
      * 预览宽
      */
@@ -39,6 +42,71 @@ public class PlayManager {
      */
     private Context context;
 
+    /**
+     * 纹理上传方式
+     */
+    private YuvUploadMode uploadMode = YuvUploadMode.DIRECT;
+    /**
+     * 旋转和镜像，由 GPU 完成。UI 线程设置、生产者线程缩小时读取，设置时整体替换
+     */
+    private volatile DisplayTransform displayTransform = DisplayTransform.NONE;
+
+    /**
+     * 带时间戳提交时迟到帧的处理方式
+     */
+    private YuvLateFramePolicy lateFramePolicy = YuvLateFramePolicy.DROP;
+    /**
+     * 带时间戳提交时帧在哪一次 vsync 上屏
+     */
+    private YuvRenderTiming renderTiming = YuvRenderTiming.NEAREST_VSYNC;
+    /**
+     * 带时间戳提交时最多缓存的帧数
+     */
+    private int frameQueueCapacity = 4;
+    /**
+     * 带时间戳提交时第一帧的缓冲延迟
+     */
+    private long presentationLatencyMillis;
+
+    /**
+     * 控件比帧小时先在 CPU 上缩小到控件尺寸再上传
+     */
+    private boolean downscaleToView;
+    /**
+     * 缩小用的内核与输出，只在生产者线程访问
+     */
+    private YuvScaler scaler;
+    private byte[] scaledFrame;
+    private int scaledWidth;
+    private int scaledHeight;
+    /**
+     * 数字变焦区域，由 GPU 只上传区域内的字节；设置后不再缩小到控件尺寸
+     */
+    private volatile YuvCropRect crop;
+    /**
+     * 把提交的原始帧写到文件，为 null 时不录制
+     */
+    private volatile YuvFrameRecorder recorder;
+    /**
+     * 跳过与上一帧相同的帧，为 null 时不检测，只在生产者线程访问
+     */
+    private YuvFrameChangeDetector changeDetector;
+    /**
+     * 只上传变化了的行带，为 null 时每帧整帧上传，只在 GL 线程访问
+     */
+    private YuvDirtyRegionTracker dirtyTracker;
+
+    /**
+     * 各阶段耗时与帧数统计
+     */
+    private final YuvPipelineMetrics metrics = new YuvPipelineMetrics();
+
+    /**
+     * 第一次带时间戳提交时创建
+     */
+    private YuvPresentationQueue presentationQueue;
+    private YuvVsyncPacer vsyncPacer;
+
     private I420Renderer mRenderer;
 
     private PlayManager() {
@@ -49,6 +117,17 @@ public class PlayManager {
         private int previewHeight = -1;
         private boolean isRequestRender;
         private ViewGroup bindPlayControl;
+        private YuvUploadMode uploadMode = YuvUploadMode.DIRECT;
+        private int rotation;
+        private boolean flipHorizontal;
+        private boolean flipVertical;
+        private YuvLateFramePolicy lateFramePolicy = YuvLateFramePolicy.DROP;
+        private YuvRenderTiming renderTiming = YuvRenderTiming.NEAREST_VSYNC;
+        private int frameQueueCapacity = 4;
+        private long presentationLatencyMillis;
+        private boolean downscaleToView;
+        private YuvFrameChangeDetector changeDetector;
+        private YuvDirtyRegionTracker dirtyTracker;
 
         public PlayManagerBuilder() {
         }
@@ -73,6 +152,95 @@ public class PlayManager {
         }
 
 
+        /**
+         * 纹理上传方式，默认 {@link YuvUploadMode#DIRECT}；{@link YuvUploadMode#PIXEL_BUFFER} 通过 PBO 环异步上传
+         */
+        public PlayManagerBuilder withUploadMode(YuvUploadMode uploadMode) {
+            this.uploadMode = uploadMode;
+            return this;
+        }
+
+        /**
+         * @param rotation 画面顺时针旋转角度 0 / 90 / 180 / 270，在 GPU 上完成
+         */
+        public PlayManagerBuilder withRotation(int rotation) {
+            this.rotation = rotation;
+            return this;
+        }
+
+        public PlayManagerBuilder withFlipHorizontal(boolean flipHorizontal) {
+            this.flipHorizontal = flipHorizontal;
+            return this;
+        }
+
+        public PlayManagerBuilder withFlipVertical(boolean flipVertical) {
+            this.flipVertical = flipVertical;
+            return this;
+        }
+
+        /**
+         * 带时间戳提交（setYUV(..., ptsNanos)）时迟到帧的处理方式，默认 {@link YuvLateFramePolicy#DROP}
+         */
+        public PlayManagerBuilder withLateFramePolicy(YuvLateFramePolicy lateFramePolicy) {
+            this.lateFramePolicy = lateFramePolicy;
+            return this;
+        }
+
+        /**
+         * 带时间戳提交时帧在哪一次 vsync 上屏，默认 {@link YuvRenderTiming#NEAREST_VSYNC}
+         */
+        public PlayManagerBuilder withRenderTiming(YuvRenderTiming renderTiming) {
+            this.renderTiming = renderTiming;
+            return this;
+        }
+
+        /**
+         * 带时间戳提交时最多缓存的帧数，默认 4，满了丢弃最旧的帧
+         */
+        public PlayManagerBuilder withFrameQueueCapacity(int frameQueueCapacity) {
+            this.frameQueueCapacity = frameQueueCapacity;
+            return this;
+        }
+
+        /**
+         * 带时间戳提交时第一帧延后多久上屏，用来吸收突发输入的抖动，默认 0
+         */
+        public PlayManagerBuilder withPresentationLatency(long millis) {
+            this.presentationLatencyMillis = millis;
+            return this;
+        }
+
+        /**
+         * 控件比预览尺寸小时（例如 1080p 画面显示在 320x180 的小窗口），先在 CPU 上按控件尺寸缩小
+         * （保持宽高比，整数倍时盒式抽取，否则双线性，见 {@link YuvScaler}）再上传，
+         * 上传带宽和纹理显存随显示尺寸而不是采集尺寸变化。只作用于 byte[] / 堆内存 ByteBuffer 的提交，
+         * 带时间戳提交时在入队之前缩小
+         */
+        public PlayManagerBuilder withDownscaleToView(boolean downscaleToView) {
+            this.downscaleToView = downscaleToView;
+            return this;
+        }
+
+        /**
+         * 重复帧检测：setYUVI420 / setYUV（带或不带时间戳）提交的帧与上一帧相同时（静止画面、生产者重复发送同一块 buffer），
+         * 跳过暂存拷贝（带时间戳时不入队）、纹理上传和 requestRender，计入 {@link YuvMetricsSnapshot#skippedFrames}。
+         * 抽样密度见 {@link YuvFrameChangeDetector.Builder}，默认 null 不检测
+         */
+        public PlayManagerBuilder withFrameChangeDetector(YuvFrameChangeDetector changeDetector) {
+            this.changeDetector = changeDetector;
+            return this;
+        }
+
+        /**
+         * 脏区域上传：屏幕共享、监控这类大部分内容不变的画面，GL 线程把新帧与上一次上传的内容按行带精确比较，
+         * 只用 glTexSubImage 更新变化了的行带；变化面积超过阈值时整帧上传。
+         * 行带高度和阈值见 {@link YuvDirtyRegionTracker.Builder}，默认 null 每帧整帧上传
+         */
+        public PlayManagerBuilder withDirtyRegionTracker(YuvDirtyRegionTracker dirtyTracker) {
+            this.dirtyTracker = dirtyTracker;
+            return this;
+        }
+
         public PlayManagerBuilder bindPlayControl(ViewGroup bindPlayControl) {
             this.bindPlayControl = bindPlayControl;
             return this;
@@ -85,25 +253,55 @@ public class PlayManager {
             playYUVUtils.previewHeight = this.previewHeight;
             playYUVUtils.isRequestRender = this.isRequestRender;
             playYUVUtils.bindPlayControl = this.bindPlayControl;
+            playYUVUtils.uploadMode = this.uploadMode;
+            playYUVUtils.displayTransform = new DisplayTransform(this.rotation, this.flipHorizontal, this.flipVertical);
+            playYUVUtils.lateFramePolicy = this.lateFramePolicy;
+            playYUVUtils.renderTiming = this.renderTiming;
+            playYUVUtils.frameQueueCapacity = this.frameQueueCapacity;
+            playYUVUtils.presentationLatencyMillis = this.presentationLatencyMillis;
+            playYUVUtils.downscaleToView = this.downscaleToView;
+            playYUVUtils.changeDetector = this.changeDetector;
+            playYUVUtils.dirtyTracker = this.dirtyTracker;
             playYUVUtils.context = context.getApplicationContext();
 
             return playYUVUtils;
         }
     }
 
+    /**
+     * 预热：后台读取着色器源码、在离屏 EGL 上下文中编译并缓存程序二进制（见 {@link YuvGlPrewarmer}），
+     * 同时提前创建播放控件，initPlayControl 时只需要添加到布局中。编译在后台进行，要尽早调用
+     * （例如打开相机、加载数据之前），紧接着 initPlayControl 调用几乎没有收益；
+     * 还没有构建 PlayManager 时可以直接在 Application.onCreate 中调用 {@link YuvGlPrewarmer#prewarm}
+     */
+    public void prewarm() {
+        checkControl();
+        YuvGlPrewarmer.prewarm(context);
+        createPlayControl();
+    }
+
     public void initPlayControl() {
         checkControl();
+        if (videoConsumerGLPreview != null && videoConsumerGLPreview.getParent() != null) return;
+        createPlayControl();
+        bindPlayControl.removeAllViews();
+        bindPlayControl.addView(videoConsumerGLPreview);
+
+    }
+
+    private void createPlayControl() {
         if (previewWidth == -1 || previewHeight == -1)
             throw new RuntimeException("previewWidth or previewHeight is init ?");
         if (videoConsumerGLPreview != null) return;
         videoConsumerGLPreview = new GLSurfaceView(context);
         videoConsumerGLPreview.setEGLContextClientVersion(3); // 设置OpenGL版本号
-        mRenderer = new I420Renderer(context);
+        mRenderer = new I420Renderer(context, uploadMode);
+        DisplayTransform transform = displayTransform;
+        mRenderer.setDisplayTransform(transform.rotation, transform.flipHorizontal, transform.flipVertical);
+        mRenderer.setMetrics(metrics);
+        mRenderer.setDirtyRegionTracker(dirtyTracker);
         videoConsumerGLPreview.setRenderer(mRenderer);
         videoConsumerGLPreview.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY); // 设置渲染模式为仅当手动执行requestRender时才绘制
-        bindPlayControl.removeAllViews();
-        bindPlayControl.addView(videoConsumerGLPreview);
-
     }
 
     private void checkControl() {
@@ -112,14 +310,380 @@ public class PlayManager {
     }
 
     /**
-     * 开始播放
+     * 开始播放，数据在调用内已拷贝，返回后 i420 可以归还帧池复用
      *
      * @param i420
      */
     public void setYUVI420(byte[] i420) {
         checkControl();
-        mRenderer.setYuvData(i420, this.previewWidth, this.previewHeight);
+        long start = YuvPipelineMetrics.now();
+        record(i420, YuvFormat.I420);
+        if (isDuplicate(i420, 0, YuvFormat.I420, start)) return;
+        if (downscale(i420, 0, YuvFormat.I420)) {
+            mRenderer.setYuvData(scaledFrame, scaledWidth, scaledHeight);
+        } else {
+            mRenderer.setYuvData(i420, this.previewWidth, this.previewHeight);
+        }
         videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 开始播放，数据在调用内拷贝一次，返回后 buffer 可以复用
+     *
+     * @param i420 从当前 position 开始的一帧 I420
+     */
+    public void setYUVI420(ByteBuffer i420) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        record(i420, YuvFormat.I420);
+        if (isDuplicate(i420, YuvFormat.I420, start)) return;
+        if (i420.hasArray() && downscale(i420.array(), i420.arrayOffset() + i420.position(), YuvFormat.I420)) {
+            mRenderer.setYuvData(scaledFrame, scaledWidth, scaledHeight);
+        } else {
+            mRenderer.setYuvData(i420, this.previewWidth, this.previewHeight);
+        }
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 播放任意 {@link YuvFormat} 的一帧，NV21 / NV12 直接上传 Y 和交错色度，不需要在 CPU 上转换成 I420。
+     * 数据在调用内拷贝一次，返回后可以复用
+     *
+     * @param yuv    一帧 YUV420
+     * @param format 数据格式
+     */
+    public void setYUV(byte[] yuv, YuvFormat format) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        record(yuv, format);
+        if (isDuplicate(yuv, 0, format, start)) return;
+        if (downscale(yuv, 0, format)) {
+            mRenderer.setYuvData(scaledFrame, scaledWidth, scaledHeight, format);
+        } else {
+            mRenderer.setYuvData(yuv, this.previewWidth, this.previewHeight, format);
+        }
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 同 {@link #setYUV(byte[], YuvFormat)}，从 buffer 当前 position 开始读取
+     */
+    public void setYUV(ByteBuffer yuv, YuvFormat format) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        record(yuv, format);
+        if (isDuplicate(yuv, format, start)) return;
+        if (yuv.hasArray() && downscale(yuv.array(), yuv.arrayOffset() + yuv.position(), format)) {
+            mRenderer.setYuvData(scaledFrame, scaledWidth, scaledHeight, format);
+        } else {
+            mRenderer.setYuvData(yuv, this.previewWidth, this.previewHeight, format);
+        }
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 开始或停止录制：之后通过 setYUVI420 / setYUV（带或不带时间戳）提交、格式与 recorder 相同的帧在缩小、裁剪之前
+     * 原样拷贝一份交给 recorder，由其后台线程写盘，见 {@link YuvFrameRecorder}。
+     * recorder 的宽高需要与预览宽高一致；传 null 停止录制，recorder 由调用方关闭
+     */
+    public void setRecorder(YuvFrameRecorder recorder) {
+        if (recorder != null && (recorder.getWidth() != previewWidth || recorder.getHeight() != previewHeight))
+            throw new IllegalArgumentException("recorder size " + recorder.getWidth() + "x" + recorder.getHeight()
+                    + " != preview size " + previewWidth + "x" + previewHeight);
+        this.recorder = recorder;
+    }
+
+    public YuvFrameRecorder getRecorder() {
+        return recorder;
+    }
+
+    private void record(byte[] yuv, YuvFormat format) {
+        YuvFrameRecorder recorder = this.recorder;
+        if (recorder != null && recorder.getFormat() == format) recorder.record(yuv);
+    }
+
+    private void record(ByteBuffer yuv, YuvFormat format) {
+        YuvFrameRecorder recorder = this.recorder;
+        if (recorder != null && recorder.getFormat() == format) recorder.record(yuv);
+    }
+
+    /**
+     * 开启了重复帧检测且这一帧与上一帧相同时计数，调用方直接返回，不暂存、不上传、不 requestRender
+     */
+    private boolean isDuplicate(byte[] yuv, int offset, YuvFormat format, long start) {
+        if (changeDetector == null
+                || !changeDetector.isDuplicate(yuv, offset, previewWidth, previewHeight, format)) return false;
+        metrics.onFrameSkipped();
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+        return true;
+    }
+
+    private boolean isDuplicate(ByteBuffer yuv, YuvFormat format, long start) {
+        if (changeDetector == null
+                || !changeDetector.isDuplicate(yuv, previewWidth, previewHeight, format)) return false;
+        metrics.onFrameSkipped();
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+        return true;
+    }
+
+    /**
+     * 开启了 downscaleToView 且控件比帧小时，把帧缩小到控件尺寸放进 scaledFrame
+     *
+     * @return 是否缩小了，false 时按原尺寸提交
+     */
+    private boolean downscale(byte[] yuv, int offset, YuvFormat format) {
+        // 变焦区域按原始分辨率的坐标给出，缩小后放大会损失细节
+        if (!downscaleToView || crop != null) return false;
+        int viewWidth = mRenderer.getSurfaceWidth();
+        int viewHeight = mRenderer.getSurfaceHeight();
+        if (viewWidth <= 0 || viewHeight <= 0) return false;
+        if (displayTransform.rotation % 180 != 0) {
+            // 画面在 GPU 上旋转 90 / 270 度，帧的宽对应控件的高
+            int swap = viewWidth;
+            viewWidth = viewHeight;
+            viewHeight = swap;
+        }
+        // 保持宽高比放进控件，用整数计算，1920x1080 -> 320x180 这样的整数倍能走盒式抽取
+        int width;
+        int height;
+        if ((long) viewWidth * previewHeight <= (long) viewHeight * previewWidth) {
+            width = viewWidth;
+            height = (int) ((long) previewHeight * viewWidth / previewWidth);
+        } else {
+            height = viewHeight;
+            width = (int) ((long) previewWidth * viewHeight / previewHeight);
+        }
+        width &= ~1;
+        height &= ~1;
+        if (width >= previewWidth || height >= previewHeight || width < 2 || height < 2) return false;
+        long start = YuvPipelineMetrics.now();
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (scaler == null) scaler = new YuvScaler();
+        if (scaledFrame == null || scaledFrame.length < frameSize) scaledFrame = new byte[frameSize];
+        scaler.scale(yuv, offset, previewWidth, previewHeight, format, scaledFrame, width, height);
+        scaledWidth = width;
+        scaledHeight = height;
+        metrics.record(YuvPipelineMetrics.Stage.CONVERT, start);
+        return true;
+    }
+
+    /**
+     * 播放带行填充 / 像素间隔的三平面数据，例如 Camera2 YUV_420_888 的 Image：
+     * <pre>
+     * Image.Plane[] p = image.getPlanes();
+     * setYUVPlanes(p[0].getBuffer(), p[0].getRowStride(), p[1].getBuffer(), p[2].getBuffer(),
+     *         p[1].getRowStride(), p[1].getPixelStride());
+     * </pre>
+     * pixelStride 为 1 时不重排，上传时跳过行填充；否则拷贝时一次遍历重排色度。返回后可以关闭 Image
+     */
+    public void setYUVPlanes(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                             int uvRowStride, int uvPixelStride) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        mRenderer.setYuvPlanes(y, yRowStride, u, v, uvRowStride, uvPixelStride,
+                this.previewWidth, this.previewHeight);
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 播放带行填充的半平面数据，例如 MediaCodec 输出的 NV12（uv 从 stride * sliceHeight 处开始）
+     *
+     * @param format {@link YuvFormat#NV21} 或 {@link YuvFormat#NV12}
+     */
+    public void setYUVSemiPlanar(ByteBuffer y, int yRowStride, ByteBuffer uv, int uvRowStride, YuvFormat format) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        mRenderer.setYuvSemiPlanar(y, yRowStride, uv, uvRowStride, this.previewWidth, this.previewHeight, format);
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 播放一帧内容不会再改变的数据（例如 {@link YuvFileSource} 的映射切片），direct buffer 不拷贝直接上传。
+     * 宽高以传入的为准，可以与预览宽高不同
+     */
+    @Override
+    public void onFrame(ByteBuffer yuv, int width, int height, YuvFormat format) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        mRenderer.setYuvReference(yuv, width, height, format);
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 带显示时间戳提交一帧 I420，按 PTS 排队，跟随屏幕 vsync 匀速上屏，见 {@link #setYUV(byte[], YuvFormat, long)}
+     */
+    public void setYUVI420(byte[] i420, long ptsNanos) {
+        setYUV(i420, YuvFormat.I420, ptsNanos);
+    }
+
+    /**
+     * 带显示时间戳提交一帧，适合文件、网络等突发到达的输入：
+     * 帧拷贝到按 PTS 排序的有界队列，每次 vsync 取出到期的一帧上屏，迟到的帧按
+     * {@link PlayManagerBuilder#withLateFramePolicy} 处理，没有到期的帧时不重复绘制。
+     * 第一帧的 PTS 对齐到当前时间，之后只使用帧之间的 PTS 差值；seek 后调用 {@link #flushFrames()}。
+     * 录制、重复帧检测和缩小到控件尺寸与不带时间戳的提交相同，在入队之前完成，重复帧不入队，上一帧继续显示。
+     * <p>
+     * 不要与不带时间戳的 setYUV 系列方法混用。返回后 yuv 可以复用
+     *
+     * @param ptsNanos 显示时间戳（纳秒）
+     */
+    public void setYUV(byte[] yuv, YuvFormat format, long ptsNanos) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        record(yuv, format);
+        if (isDuplicate(yuv, 0, format, start)) return;
+        YuvPresentationQueue queue = presentationQueue();
+        boolean scaled = downscale(yuv, 0, format);
+        // STAGING 只统计入队拷贝，缩小已经记在 CONVERT
+        long staging = YuvPipelineMetrics.now();
+        if (scaled) {
+            queue.submit(scaledFrame, scaledWidth, scaledHeight, format, ptsNanos);
+        } else {
+            queue.submit(yuv, this.previewWidth, this.previewHeight, format, ptsNanos);
+        }
+        metrics.record(YuvPipelineMetrics.Stage.STAGING, staging);
+        vsyncPacer.schedule();
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 同 {@link #setYUV(byte[], YuvFormat, long)}，从 buffer 当前 position 开始读取
+     */
+    public void setYUV(ByteBuffer yuv, YuvFormat format, long ptsNanos) {
+        checkControl();
+        long start = YuvPipelineMetrics.now();
+        record(yuv, format);
+        if (isDuplicate(yuv, format, start)) return;
+        YuvPresentationQueue queue = presentationQueue();
+        boolean scaled = yuv.hasArray() && downscale(yuv.array(), yuv.arrayOffset() + yuv.position(), format);
+        long staging = YuvPipelineMetrics.now();
+        if (scaled) {
+            queue.submit(scaledFrame, scaledWidth, scaledHeight, format, ptsNanos);
+        } else {
+            queue.submit(yuv, this.previewWidth, this.previewHeight, format, ptsNanos);
+        }
+        metrics.record(YuvPipelineMetrics.Stage.STAGING, staging);
+        vsyncPacer.schedule();
+        metrics.record(YuvPipelineMetrics.Stage.SUBMIT, start);
+    }
+
+    /**
+     * 丢弃还没上屏的带时间戳帧，下一帧重新对齐时间线（seek、切换源后调用）
+     */
+    public void flushFrames() {
+        if (presentationQueue != null) presentationQueue.flush();
+    }
+
+    /**
+     * 带时间戳提交使用的队列，可以查询上屏 / 迟到丢弃 / 溢出丢弃的帧数；还没有带时间戳提交过时为 null
+     */
+    public YuvPresentationQueue getPresentationQueue() {
+        return presentationQueue;
+    }
+
+    private YuvPresentationQueue presentationQueue() {
+        if (presentationQueue == null) {
+            presentationQueue = new YuvPresentationQueue.Builder()
+                    .withCapacity(frameQueueCapacity)
+                    .withLateFramePolicy(lateFramePolicy)
+                    .withRenderTiming(renderTiming)
+                    .withLatencyNanos(presentationLatencyMillis * 1_000_000L)
+                    .withMetrics(metrics)
+                    .build();
+            WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+            vsyncPacer = new YuvVsyncPacer(presentationQueue, windowManager.getDefaultDisplay().getRefreshRate(),
+                    new YuvVsyncPacer.Presenter() {
+                        @Override
+                        public YuvFrameBuffer present(YuvFrameBuffer frame) {
+                            YuvFrameBuffer spare = mRenderer.presentFrame(frame);
+                            videoConsumerGLPreview.requestRender(); // 手动触发渲染
+                            return spare;
+                        }
+                    });
+        }
+        return presentationQueue;
+    }
+
+    /**
+     * 播放相机预览的 NV21 数据，不做 CPU 转换
+     */
+    public void setNV21(byte[] nv21) {
+        setYUV(nv21, YuvFormat.NV21);
+    }
+
+    /**
+     * 运行中修改画面的旋转和镜像，由 GPU 完成，每帧不消耗 CPU
+     *
+     * @param rotation 顺时针旋转角度 0 / 90 / 180 / 270
+     */
+    public void setDisplayTransform(int rotation, boolean flipHorizontal, boolean flipVertical) {
+        checkControl();
+        this.displayTransform = new DisplayTransform(rotation, flipHorizontal, flipVertical);
+        mRenderer.setDisplayTransform(rotation, flipHorizontal, flipVertical);
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+    }
+
+    /**
+     * 数字变焦 / 局部放大：只显示源图像（旋转之前）中的 crop 区域并铺满控件。
+     * 在 GPU 上完成，每帧只上传区域内的字节（GL_UNPACK_SKIP_PIXELS / SKIP_ROWS），纹理坐标随之缩放，
+     * 耗时与区域面积成正比；区域变化时不重新分配纹理。为 null 时显示整帧
+     */
+    public void setCrop(YuvCropRect crop) {
+        checkControl();
+        this.crop = crop;
+        mRenderer.setCrop(crop);
+        videoConsumerGLPreview.requestRender(); // 手动触发渲染
+    }
+
+    /**
+     * 以 (centerX, centerY) 为中心放大 zoom 倍，见 {@link YuvCropRect#zoom}，zoom 小于等于 1 时显示整帧
+     */
+    public void setZoom(float zoom, int centerX, int centerY) {
+        setCrop(zoom <= 1f ? null : YuvCropRect.zoom(previewWidth, previewHeight, zoom, centerX, centerY));
+    }
+
+    public YuvCropRect getCrop() {
+        return crop;
+    }
+
+    /**
+     * 统计对象，转换等外部阶段可以用它记录，例如
+     * {@link VideoUtils} 的带统计重载记录 {@link YuvPipelineMetrics.Stage#CONVERT}
+     */
+    public YuvPipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 填充当前统计（各阶段 p50/p95/p99/max、提交/绘制/丢帧数、帧率），out 可以复用
+     */
+    public void snapshotMetrics(YuvMetricsSnapshot out) {
+        metrics.snapshot(out);
+    }
+
+    /**
+     * 每绘制 interval 帧在 GL 线程回调一次统计，listener 为 null 时取消
+     */
+    public void setMetricsListener(YuvPipelineMetrics.Listener listener, int interval) {
+        metrics.setListener(listener, interval);
+    }
+
+    /**
+     * GL 线程来不及绘制、被新帧覆盖掉的帧数，加上带时间戳提交时队列迟到和溢出丢弃的帧数，
+     * 持续增长说明渲染跟不上输入帧率
+     */
+    public long getDroppedFrameCount() {
+        long dropped = mRenderer == null ? 0 : mRenderer.getDroppedFrameCount();
+        YuvPresentationQueue queue = presentationQueue;
+        if (queue != null) dropped += queue.getLateDroppedCount() + queue.getOverflowDroppedCount();
+        return dropped;
     }
 
     /**
@@ -134,6 +698,7 @@ public class PlayManager {
      * 销毁
      */
     public void onDestory() {
+        if (vsyncPacer != null) vsyncPacer.release();
         try {
             removePlayControl();
         } catch (Error error) {
@@ -141,4 +706,26 @@ public class PlayManager {
         }
     }
 
+    /**
+     * 一次设置的旋转和镜像，不可变，跨线程时整体发布
+     */
+    private static final class DisplayTransform {
+        static final DisplayTransform NONE = new DisplayTransform(0, false, false);
+
+        /**
+         * 顺时针旋转角度
+         */
+        final int rotation;
+        /**
+         * 水平镜像（例如前置摄像头）
+         */
+        final boolean flipHorizontal;
+        final boolean flipVertical;
+
+        DisplayTransform(int rotation, boolean flipHorizontal, boolean flipVertical) {
+            this.rotation = rotation;
+            this.flipHorizontal = flipHorizontal;
+            this.flipVertical = flipVertical;
+        }
+    }
 }
\ No newline at end of file
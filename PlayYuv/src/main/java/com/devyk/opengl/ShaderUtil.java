@@ -44,6 +44,13 @@ public class ShaderUtil {
     }
 
     public static int createProgram(String vertexSource, String fragmentSource) {
+        return createProgram(vertexSource, fragmentSource, false);
+    }
+
+    /**
+     * @param binaryRetrievable 链接后是否需要用 glGetProgramBinary 取出二进制，见 {@link YuvProgramCache}
+     */
+    public static int createProgram(String vertexSource, String fragmentSource, boolean binaryRetrievable) {
         // 1. load shader
         int vertexShader = loadShader(GLES30.GL_VERTEX_SHADER, vertexSource);
         if (vertexShader == GLES30.GL_NONE) {
@@ -68,6 +75,9 @@ public class ShaderUtil {
         GLES30.glDeleteShader(vertexShader);
         GLES30.glDeleteShader(fragmentShader);
         // 4. link program
+        if (binaryRetrievable) {
+            GLES30.glProgramParameteri(program, GLES30.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GLES30.GL_TRUE);
+        }
         GLES30.glLinkProgram(program);
         // 5. check link status
         int[] linkStatus = new int[1];
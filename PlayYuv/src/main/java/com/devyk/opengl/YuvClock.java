@@ -0,0 +1,19 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvClock 显示时间基准
+ *
+ *     必须与 Choreographer 的 frameTimeNanos 同一时间基（System.nanoTime），测试时可以替换为手动推进的时钟。
+ * </pre>
+ */
+public interface YuvClock {
+    YuvClock SYSTEM = new YuvClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    long nanoTime();
+}
@@ -0,0 +1,82 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvCropRect 感兴趣区域（数字变焦、局部放大）
+ *
+ *     源图像坐标系（旋转之前）中的矩形，不可变。四个值都必须是偶数，
+ *     这样 4:2:0 的色度平面正好对应 [left / 2, top / 2, width / 2, height / 2]，不需要插值。
+ * </pre>
+ */
+public final class YuvCropRect {
+    public final int left;
+    public final int top;
+    public final int width;
+    public final int height;
+
+    public YuvCropRect(int left, int top, int width, int height) {
+        if (((left | top | width | height) & 1) != 0)
+            throw new IllegalArgumentException("crop must be aligned to even coordinates : "
+                    + toString(left, top, width, height));
+        if (left < 0 || top < 0 || width < 2 || height < 2)
+            throw new IllegalArgumentException("crop is invalid ? " + toString(left, top, width, height));
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 以 (centerX, centerY) 为中心、把 frameWidth x frameHeight 的画面放大 zoom 倍的区域，
+     * 向内对齐到偶数并限制在画面之内，zoom 小于等于 1 时为整个画面
+     */
+    public static YuvCropRect zoom(int frameWidth, int frameHeight, float zoom, int centerX, int centerY) {
+        if (zoom <= 1f) return new YuvCropRect(0, 0, frameWidth & ~1, frameHeight & ~1);
+        int width = Math.max(2, (int) (frameWidth / zoom) & ~1);
+        int height = Math.max(2, (int) (frameHeight / zoom) & ~1);
+        int left = Math.max(0, Math.min(centerX - width / 2, frameWidth - width)) & ~1;
+        int top = Math.max(0, Math.min(centerY - height / 2, frameHeight - height)) & ~1;
+        return new YuvCropRect(left, top, width, height);
+    }
+
+    /**
+     * 是否完全落在 frameWidth x frameHeight 的画面内
+     */
+    public boolean fits(int frameWidth, int frameHeight) {
+        return left + width <= frameWidth && top + height <= frameHeight;
+    }
+
+    /**
+     * 是否就是整个画面（不需要裁剪）
+     */
+    public boolean isFullFrame(int frameWidth, int frameHeight) {
+        return left == 0 && top == 0 && width == frameWidth && height == frameHeight;
+    }
+
+    void checkFits(int frameWidth, int frameHeight) {
+        if (!fits(frameWidth, frameHeight))
+            throw new IllegalArgumentException("crop " + this + " is out of frame " + frameWidth + "x" + frameHeight);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof YuvCropRect)) return false;
+        YuvCropRect that = (YuvCropRect) o;
+        return left == that.left && top == that.top && width == that.width && height == that.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((left * 31 + top) * 31 + width) * 31 + height;
+    }
+
+    @Override
+    public String toString() {
+        return toString(left, top, width, height);
+    }
+
+    private static String toString(int left, int top, int width, int height) {
+        return "[" + left + ", " + top + ", " + width + "x" + height + "]";
+    }
+}
@@ -0,0 +1,264 @@
+package com.devyk.opengl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvDirtyRegionTracker 找出与上一次上传相比变化了的行带，只更新这些行
+ *
+ *     屏幕共享、监控这类画面每帧大部分内容不变。把每个平面按整行切成行带（亮度 bandHeight 行，
+ *     色度 bandHeight / 2 行，与亮度行带对应同一块画面），逐行按 long 与保存的上一次上传内容
+ *     （紧密排列的影子副本）比较，遇到第一个不同的字节即判为脏，脏行带从该行起拷贝进影子副本。
+ *     相邻的脏行带合并成一段，上传时每段一次 glTexSubImage3D（GL_UNPACK_ROW_LENGTH 跳过行填充，
+ *     GL_UNPACK_SKIP_ROWS 定位到段首行）。行带是整行宽度，在源数据和纹理中都是连续的一块，
+ *     不需要按列分块。变化面积超过阈值时退回整帧上传：多次小上传的调用开销已经不划算，
+ *     整帧上传还能走 PBO 环。比较是精确的，不会像抽样哈希那样漏掉变化。
+ *     一个实例对应一组纹理（一路画面），只能在 GL 线程使用。
+ * </pre>
+ */
+public class YuvDirtyRegionTracker {
+    private static final int MAX_PLANES = 3;
+
+    private final int bandHeight;
+    private final float fullUploadThreshold;
+
+    private int width;
+    private int height;
+    private YuvFormat format;
+    /**
+     * 为 true 时下一帧不比较，整帧判为脏（第一帧、尺寸或格式变化、调用方 invalidate）
+     */
+    private boolean invalid = true;
+
+    /**
+     * 每个平面上一次上传内容的紧密副本，direct buffer 按 long 读取比堆内存快
+     */
+    private final ByteBuffer[] shadows = new ByteBuffer[MAX_PLANES];
+    /**
+     * 每个平面的脏段：起始行与行数（平面自己的行坐标）
+     */
+    private final int[][] runTops = new int[MAX_PLANES][];
+    private final int[][] runRows = new int[MAX_PLANES][];
+    private final int[] runCounts = new int[MAX_PLANES];
+
+    private float dirtyFraction;
+    private long fullUploadCount;
+    private long partialUploadCount;
+    private long unchangedCount;
+
+    private YuvDirtyRegionTracker(Builder builder) {
+        this.bandHeight = builder.bandHeight;
+        this.fullUploadThreshold = builder.fullUploadThreshold;
+    }
+
+    public static final class Builder {
+        private int bandHeight = 64;
+        private float fullUploadThreshold = 0.5f;
+
+        /**
+         * 亮度平面行带的行数，默认 64，必须是正偶数；越小定位越精确，但比较和上传调用越多
+         */
+        public Builder withBandHeight(int bandHeight) {
+            if (bandHeight < 2 || (bandHeight & 1) != 0)
+                throw new IllegalArgumentException("bandHeight must be an even number >= 2 : " + bandHeight);
+            this.bandHeight = bandHeight;
+            return this;
+        }
+
+        /**
+         * 脏字节数占整帧的比例超过它时整帧上传，默认 0.5；0 表示有任何变化都整帧上传，1 表示总是只上传脏行带
+         */
+        public Builder withFullUploadThreshold(float fullUploadThreshold) {
+            if (!(fullUploadThreshold >= 0f && fullUploadThreshold <= 1f))
+                throw new IllegalArgumentException("fullUploadThreshold must be in [0, 1] : " + fullUploadThreshold);
+            this.fullUploadThreshold = fullUploadThreshold;
+            return this;
+        }
+
+        public YuvDirtyRegionTracker build() {
+            return new YuvDirtyRegionTracker(this);
+        }
+    }
+
+    /**
+     * 比较 frame 与上一次上传的内容并把变化写入影子副本，之后按返回值上传：
+     * true 时整帧上传；false 时只上传 {@link #getRunCount} 段，所有平面都没有段表示内容没有变化。
+     * 各平面视图的 position 不变
+     *
+     * @return 是否需要整帧上传
+     */
+    public boolean update(YuvFrameBuffer frame) {
+        frame.rewind();
+        int frameWidth = frame.getWidth();
+        int frameHeight = frame.getHeight();
+        YuvFormat frameFormat = frame.getFormat();
+        if (frameWidth != width || frameHeight != height || frameFormat != format) {
+            allocate(frameWidth, frameHeight, frameFormat);
+        }
+        boolean forced = invalid;
+        invalid = false;
+        long dirtyBytes = 0;
+        long totalBytes = 0;
+        for (int i = 0, planeCount = frame.getPlaneCount(); i < planeCount; i++) {
+            int bytesPerPixel = format.semiPlanar && i == 1 ? 2 : 1;
+            int rowBytes = (i == 0 ? width : width / 2) * bytesPerPixel;
+            int rows = i == 0 ? height : height / 2;
+            int stride = frame.getRowLength(i) * bytesPerPixel;
+            int planeBand = i == 0 ? bandHeight : bandHeight / 2;
+            dirtyBytes += (long) diffPlane(i, frame.plane(i), stride, rowBytes, rows, planeBand, forced) * rowBytes;
+            totalBytes += (long) rows * rowBytes;
+        }
+        dirtyFraction = totalBytes == 0 ? 0f : (float) dirtyBytes / totalBytes;
+        if (dirtyBytes == 0) {
+            unchangedCount++;
+            return false;
+        }
+        if (forced || dirtyFraction > fullUploadThreshold) {
+            fullUploadCount++;
+            return true;
+        }
+        partialUploadCount++;
+        return false;
+    }
+
+    /**
+     * 逐行带比较并记录脏段
+     *
+     * @return 脏行数
+     */
+    private int diffPlane(int plane, ByteBuffer src, int stride, int rowBytes, int rows, int planeBand,
+                          boolean forced) {
+        ByteBuffer shadow = shadows[plane];
+        // 两边按同一字节序读取 long，比较结果才与逐字节比较一致
+        if (shadow.order() != src.order()) shadow.order(src.order());
+        int base = src.position();
+        int limit = src.limit();
+        int[] tops = runTops[plane];
+        int[] counts = runRows[plane];
+        int runCount = 0;
+        int dirtyRows = 0;
+        for (int top = 0; top < rows; top += planeBand) {
+            int end = Math.min(top + planeBand, rows);
+            int row = top;
+            if (!forced) {
+                while (row < end && rowEquals(src, base + row * stride, shadow, row * rowBytes, rowBytes)) {
+                    row++;
+                }
+                if (row == end) continue;
+            }
+            // 第一个不同的行之前都相同，只需要从这一行拷贝
+            for (int r = row; r < end; r++) {
+                int begin = base + r * stride;
+                src.limit(begin + rowBytes);
+                src.position(begin);
+                shadow.position(r * rowBytes);
+                shadow.put(src);
+            }
+            src.limit(limit);
+            if (runCount > 0 && tops[runCount - 1] + counts[runCount - 1] == top) {
+                counts[runCount - 1] += end - top;
+            } else {
+                tops[runCount] = top;
+                counts[runCount] = end - top;
+                runCount++;
+            }
+            dirtyRows += end - top;
+        }
+        src.position(base);
+        runCounts[plane] = runCount;
+        return dirtyRows;
+    }
+
+    private static boolean rowEquals(ByteBuffer src, int srcOffset, ByteBuffer shadow, int shadowOffset, int length) {
+        int i = 0;
+        // 一次比较 32 字节，差异按位或在一起，只需要一次分支
+        for (; i + 32 <= length; i += 32) {
+            int a = srcOffset + i;
+            int b = shadowOffset + i;
+            if (((src.getLong(a) ^ shadow.getLong(b)) | (src.getLong(a + 8) ^ shadow.getLong(b + 8))
+                    | (src.getLong(a + 16) ^ shadow.getLong(b + 16))
+                    | (src.getLong(a + 24) ^ shadow.getLong(b + 24))) != 0) return false;
+        }
+        for (; i + 8 <= length; i += 8) {
+            if (src.getLong(srcOffset + i) != shadow.getLong(shadowOffset + i)) return false;
+        }
+        for (; i < length; i++) {
+            if (src.get(srcOffset + i) != shadow.get(shadowOffset + i)) return false;
+        }
+        return true;
+    }
+
+    private void allocate(int frameWidth, int frameHeight, YuvFormat frameFormat) {
+        width = frameWidth;
+        height = frameHeight;
+        format = frameFormat;
+        invalid = true;
+        int chromaWidth = frameWidth / 2;
+        int chromaHeight = frameHeight / 2;
+        int planeCount = frameFormat.semiPlanar ? 2 : 3;
+        for (int i = 0; i < MAX_PLANES; i++) {
+            if (i >= planeCount) {
+                shadows[i] = null;
+                runTops[i] = null;
+                runRows[i] = null;
+                runCounts[i] = 0;
+                continue;
+            }
+            int rowBytes = i == 0 ? frameWidth : frameFormat.semiPlanar ? chromaWidth * 2 : chromaWidth;
+            int rows = i == 0 ? frameHeight : chromaHeight;
+            int planeBand = i == 0 ? bandHeight : bandHeight / 2;
+            int bands = (rows + planeBand - 1) / planeBand;
+            shadows[i] = ByteBuffer.allocateDirect(rowBytes * rows);
+            runTops[i] = new int[bands];
+            runRows[i] = new int[bands];
+            runCounts[i] = 0;
+        }
+    }
+
+    /**
+     * 纹理内容不再与影子副本一致（纹理重新创建、按区域上传过），下一帧整帧上传
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * 最近一次 {@link #update} 后平面 plane 的脏段数
+     */
+    public int getRunCount(int plane) {
+        return runCounts[plane];
+    }
+
+    /**
+     * 第 run 段的起始行（平面自己的行坐标，色度平面为亮度的一半）
+     */
+    public int getRunTop(int plane, int run) {
+        return runTops[plane][run];
+    }
+
+    public int getRunRows(int plane, int run) {
+        return runRows[plane][run];
+    }
+
+    /**
+     * 最近一次 {@link #update} 的脏字节数占整帧的比例
+     */
+    public float getDirtyFraction() {
+        return dirtyFraction;
+    }
+
+    public long getFullUploadCount() {
+        return fullUploadCount;
+    }
+
+    public long getPartialUploadCount() {
+        return partialUploadCount;
+    }
+
+    /**
+     * 内容完全没有变化、不需要上传的帧数
+     */
+    public long getUnchangedCount() {
+        return unchangedCount;
+    }
+}
@@ -0,0 +1,178 @@
+package com.devyk.opengl;
+
+import android.util.Log;
+
+import java.io.IOException;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFilePlayer 按帧率播放 {@link YuvFileSource}
+ *
+ *     后台线程按固定帧率把映射内存上的帧切片直接交给 {@link YuvFrameSink}（例如 {@link PlayManager}），
+ *     全程不拷贝到堆内存。按绝对时间排期，落后超过一帧时重新对齐，不会补发积压的帧。
+ *     seek 只是改下一帧的序号，O(1)。
+ * </pre>
+ */
+public class YuvFilePlayer {
+    private static final String TAG = "YuvFilePlayer";
+
+    private final YuvFileSource source;
+    private final YuvFrameSink sink;
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    private long framePeriodNanos;
+    private boolean playing;
+    private boolean looping;
+    private boolean released;
+    /**
+     * 下一帧的序号
+     */
+    private int nextFrame;
+    private volatile int currentFrame = -1;
+
+    /**
+     * @param fps 播放帧率
+     */
+    public YuvFilePlayer(YuvFileSource source, YuvFrameSink sink, float fps) {
+        this.source = source;
+        this.sink = sink;
+        setFrameRate(fps);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, TAG);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void setFrameRate(float fps) {
+        if (fps <= 0)
+            throw new IllegalArgumentException("fps must be > 0 : " + fps);
+        synchronized (lock) {
+            framePeriodNanos = (long) (1_000_000_000L / fps);
+        }
+    }
+
+    public void setLooping(boolean looping) {
+        synchronized (lock) {
+            this.looping = looping;
+        }
+    }
+
+    /**
+     * 开始或继续播放
+     */
+    public void play() {
+        synchronized (lock) {
+            playing = true;
+            lock.notifyAll();
+        }
+    }
+
+    public void pause() {
+        synchronized (lock) {
+            playing = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 跳到第 frame 帧，暂停时立即显示该帧
+     */
+    public void seek(int frame) {
+        if (frame < 0 || frame >= source.getFrameCount())
+            throw new IndexOutOfBoundsException("frame " + frame + " of " + source.getFrameCount());
+        synchronized (lock) {
+            nextFrame = frame;
+            if (!playing) {
+                show(frame);
+                nextFrame = frame + 1;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 最近一次交给 sink 的帧序号，还没有显示过时为 -1
+     */
+    public int getCurrentFrame() {
+        return currentFrame;
+    }
+
+    public boolean isPlaying() {
+        synchronized (lock) {
+            return playing;
+        }
+    }
+
+    /**
+     * 停止播放线程，source 由调用方关闭
+     */
+    public void release() {
+        synchronized (lock) {
+            released = true;
+            playing = false;
+            lock.notifyAll();
+        }
+    }
+
+    private void loop() {
+        long deadline = 0;
+        synchronized (lock) {
+            while (!released) {
+                if (!playing) {
+                    waitQuietly(0);
+                    deadline = 0;
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0 || now - deadline > framePeriodNanos) {
+                    // 刚开始播放或者落后超过一帧，从现在重新排期
+                    deadline = now;
+                }
+                long waitNanos = deadline - now;
+                if (waitNanos > 0) {
+                    waitQuietly(waitNanos);
+                    continue;
+                }
+                if (nextFrame >= source.getFrameCount()) {
+                    if (!looping) {
+                        playing = false;
+                        continue;
+                    }
+                    nextFrame = 0;
+                }
+                show(nextFrame++);
+                deadline += framePeriodNanos;
+            }
+        }
+    }
+
+    private void show(int frame) {
+        try {
+            sink.onFrame(source.frame(frame), source.getWidth(), source.getHeight(), source.getFormat());
+            currentFrame = frame;
+        } catch (IOException e) {
+            Log.w(TAG, "read frame " + frame + " failed: " + e.getMessage());
+            playing = false;
+        }
+    }
+
+    /**
+     * 在 lock 上等待，0 表示一直等到被唤醒
+     */
+    private void waitQuietly(long nanos) {
+        try {
+            if (nanos == 0) {
+                lock.wait();
+            } else {
+                lock.wait(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            }
+        } catch (InterruptedException e) {
+            released = true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.devyk.opengl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFileSource 内存映射的裸 YUV 文件
+ *
+ *     文件按 宽、高、格式 切成定长帧，第 n 帧的偏移就是 n * 帧大小，任意帧 O(1) 定位。
+ *     文件只读映射，不读入堆内存；单次映射不能超过 2GB，所以按窗口（整数帧）映射，
+ *     访问的帧不在当前窗口时才重新映射。返回的帧是映射内存上的切片，不拷贝。
+ *     非线程安全，同一时间只能由一个线程读取。
+ * </pre>
+ */
+public class YuvFileSource implements Closeable {
+    /**
+     * 默认映射窗口大小，32 位进程地址空间有限，不宜过大
+     */
+    public static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final YuvFormat format;
+    private final int frameSize;
+    private final int frameCount;
+    private final int framesPerWindow;
+
+    private MappedByteBuffer window;
+    /**
+     * 当前窗口的第一帧，-1 表示还没有映射
+     */
+    private int windowFirstFrame = -1;
+
+    public YuvFileSource(File path, int width, int height, YuvFormat format) throws IOException {
+        this(path, width, height, format, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * @param windowBytes 单个映射窗口的最大字节数，至少映射一帧
+     */
+    public YuvFileSource(File path, int width, int height, YuvFormat format, int windowBytes) throws IOException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("width or height is invalid ? " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.frameSize = YuvFormat.frameSize(width, height);
+        this.framesPerWindow = Math.max(1, windowBytes / frameSize);
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        long count = channel.size() / frameSize;
+        if (count > Integer.MAX_VALUE) {
+            close();
+            throw new IOException("too many frames : " + count);
+        }
+        this.frameCount = (int) count;
+    }
+
+    /**
+     * 第 index 帧，position 为 0、limit 为帧大小的只读切片。
+     * 切片在重新映射后仍然有效（映射内存在切片不可达时才释放），内容不会改变。
+     */
+    public ByteBuffer frame(int index) throws IOException {
+        if (index < 0 || index >= frameCount)
+            throw new IndexOutOfBoundsException("frame " + index + " of " + frameCount);
+        int first = index - index % framesPerWindow;
+        if (first != windowFirstFrame) {
+            int frames = Math.min(framesPerWindow, frameCount - first);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, (long) first * frameSize, (long) frames * frameSize);
+            windowFirstFrame = first;
+        }
+        ByteBuffer view = window.duplicate();
+        int offset = (index - first) * frameSize;
+        view.position(offset);
+        view.limit(offset + frameSize);
+        return view.slice();
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public YuvFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        windowFirstFrame = -1;
+        file.close();
+    }
+}
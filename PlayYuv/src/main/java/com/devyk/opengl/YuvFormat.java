@@ -0,0 +1,77 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFormat 紧密排列的 YUV420 格式及其色度平面布局
+ * </pre>
+ */
+public enum YuvFormat {
+    /**
+     * Y 平面 + U 平面 + V 平面
+     */
+    I420(false, false),
+    /**
+     * Y 平面 + V 平面 + U 平面
+     */
+    YV12(false, true),
+    /**
+     * Y 平面 + VU 交错平面，Camera 预览默认格式
+     */
+    NV21(true, true),
+    /**
+     * Y 平面 + UV 交错平面
+     */
+    NV12(true, false);
+
+    /**
+     * 色度是否交错存放（semi-planar）
+     */
+    public final boolean semiPlanar;
+    /**
+     * V 是否排在 U 前面
+     */
+    public final boolean vFirst;
+
+    YuvFormat(boolean semiPlanar, boolean vFirst) {
+        this.semiPlanar = semiPlanar;
+        this.vFirst = vFirst;
+    }
+
+    /**
+     * U 分量在帧中的起始位置
+     */
+    public int uOffset(int width, int height) {
+        return chromaOffset(width, height, !vFirst);
+    }
+
+    /**
+     * V 分量在帧中的起始位置
+     */
+    public int vOffset(int width, int height) {
+        return chromaOffset(width, height, vFirst);
+    }
+
+    private int chromaOffset(int width, int height, boolean first) {
+        int size = width * height;
+        if (semiPlanar) return first ? size : size + 1;
+        return first ? size : size + (width / 2) * (height / 2);
+    }
+
+    /**
+     * 色度相邻像素的间隔
+     */
+    public int chromaPixelStride() {
+        return semiPlanar ? 2 : 1;
+    }
+
+    /**
+     * 色度行间隔（字节）
+     */
+    public int chromaRowStride(int width) {
+        return semiPlanar ? (width / 2) * 2 : width / 2;
+    }
+
+    public static int frameSize(int width, int height) {
+        return width * height + (width / 2) * (height / 2) * 2;
+    }
+}
@@ -0,0 +1,376 @@
+package com.devyk.opengl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFrameBuffer YUV420 上传暂存区
+ *
+ *     一块可复用的 direct ByteBuffer 存放整帧 YUV420，各平面只是它上面
+ *     position/limit 不同的视图，上传纹理时直接从视图读取，不再拆分拷贝。
+ *     平面格式（I420 / YV12）为 Y、U、V 三个平面；半平面格式（NV21 / NV12）为 Y 和交错色度两个平面。
+ *     带行填充的平面（Camera2 Image、MediaCodec 输出）按原始行间隔整体拷贝，上传时用
+ *     GL_UNPACK_ROW_LENGTH 跳过填充；只有 GL 无法直接描述的布局才在拷贝时重排一次。
+ *     调用方本身传入 direct ByteBuffer 时连这一次拷贝也省掉。
+ * </pre>
+ */
+public class YuvFrameBuffer {
+    private int width;
+    private int height;
+    private YuvFormat format = YuvFormat.I420;
+    /**
+     * 自己持有的暂存区，只在帧变大时重新分配
+     */
+    private ByteBuffer stagingBuffer;
+    /**
+     * 当前帧数据所在的 buffer，可能是 stagingBuffer，也可能是调用方的 direct buffer
+     */
+    private ByteBuffer source;
+    private int sourceOffset;
+    private final ByteBuffer[] planes = new ByteBuffer[3];
+    /**
+     * 各平面相对 sourceOffset 的起始位置、字节数、行间隔（字节）
+     */
+    private final int[] planeOffsets = new int[3];
+    private final int[] planeLengths = new int[3];
+    private final int[] rowStrides = new int[3];
+    /**
+     * 重排色度时的行缓存
+     */
+    private byte[] rowU = new byte[0];
+    private byte[] rowV = new byte[0];
+    private byte[] rowUV = new byte[0];
+
+    /**
+     * 拷贝一帧 I420 到暂存区（一次拷贝）
+     */
+    public void put(byte[] i420, int width, int height) {
+        put(i420, width, height, YuvFormat.I420);
+    }
+
+    /**
+     * 拷贝一帧 format 格式的 YUV420 到暂存区（一次拷贝）
+     */
+    public void put(byte[] yuv, int width, int height, YuvFormat format) {
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (yuv.length < frameSize)
+            throw new IllegalArgumentException("yuv size " + yuv.length + " < " + frameSize);
+        ByteBuffer staging = ensureStaging(frameSize);
+        staging.clear();
+        staging.put(yuv, 0, frameSize);
+        setSource(staging, 0, width, height, format);
+    }
+
+    /**
+     * 设置一帧 I420，direct buffer 直接引用不拷贝，此时在渲染完成前调用方不能改写它；
+     * 非 direct buffer 会拷贝到暂存区。从 buffer 当前 position 开始读取，不改变其 position。
+     */
+    public void put(ByteBuffer i420, int width, int height) {
+        put(i420, width, height, YuvFormat.I420);
+    }
+
+    /**
+     * 设置一帧 format 格式的 YUV420，其余同 {@link #put(ByteBuffer, int, int)}
+     */
+    public void put(ByteBuffer yuv, int width, int height, YuvFormat format) {
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (yuv.remaining() < frameSize)
+            throw new IllegalArgumentException("yuv remaining " + yuv.remaining() + " < " + frameSize);
+        if (yuv.isDirect()) {
+            setSource(yuv, yuv.position(), width, height, format);
+            return;
+        }
+        copy(yuv, width, height, format);
+    }
+
+    /**
+     * 拷贝一帧 I420 到暂存区，direct buffer 也拷贝，返回后调用方可以改写 i420。
+     * 从 buffer 当前 position 开始读取，不改变其 position。
+     */
+    public void copy(ByteBuffer i420, int width, int height) {
+        copy(i420, width, height, YuvFormat.I420);
+    }
+
+    /**
+     * 拷贝一帧 format 格式的 YUV420 到暂存区，其余同 {@link #copy(ByteBuffer, int, int)}
+     */
+    public void copy(ByteBuffer yuv, int width, int height, YuvFormat format) {
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (yuv.remaining() < frameSize)
+            throw new IllegalArgumentException("yuv remaining " + yuv.remaining() + " < " + frameSize);
+        ByteBuffer staging = ensureStaging(frameSize);
+        staging.clear();
+        if (yuv.hasArray()) {
+            staging.put(yuv.array(), yuv.arrayOffset() + yuv.position(), frameSize);
+        } else {
+            ByteBuffer src = yuv.duplicate();
+            src.limit(src.position() + frameSize);
+            staging.put(src);
+        }
+        setSource(staging, 0, width, height, format);
+    }
+
+    /**
+     * 拷贝一帧带行填充 / 像素间隔的三平面 YUV420（Camera2 YUV_420_888 的 Image.Plane），
+     * 从各 buffer 当前 position 开始读取，不改变其 position。
+     * <p>
+     * 色度 pixelStride 为 1 时三个平面按原始行间隔整体拷贝，不重排，上传时跳过行填充；
+     * 否则在拷贝时一次遍历把 U/V 重排为紧密的 NV12 交错色度。
+     *
+     * @param yRowStride    Y 平面行间隔（字节）
+     * @param uvRowStride   U/V 平面行间隔（字节）
+     * @param uvPixelStride U/V 相邻像素间隔（字节）
+     */
+    public void putPlanes(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                          int uvRowStride, int uvPixelStride, int width, int height) {
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        int yLength = checkPlane("y", y, yRowStride, width, height);
+        int uvRowBytes = (chromaWidth - 1) * uvPixelStride + 1;
+        if (uvPixelStride < 1)
+            throw new IllegalArgumentException("uvPixelStride must be > 0 : " + uvPixelStride);
+        int uvLength = checkPlane("u", u, uvRowStride, uvRowBytes, chromaHeight);
+        checkPlane("v", v, uvRowStride, uvRowBytes, chromaHeight);
+        if (uvPixelStride == 1) {
+            ByteBuffer staging = ensureStaging(yLength + uvLength * 2);
+            staging.clear();
+            copyRegion(y, yLength, staging);
+            copyRegion(u, uvLength, staging);
+            copyRegion(v, uvLength, staging);
+            useSource(staging, 0);
+            setLayout(YuvFormat.I420, width, height,
+                    0, yLength, yRowStride,
+                    yLength, uvLength, uvRowStride,
+                    yLength + uvLength, uvLength, uvRowStride);
+            return;
+        }
+        int tightUV = chromaWidth * 2 * chromaHeight;
+        ByteBuffer staging = ensureStaging(yLength + tightUV);
+        staging.clear();
+        copyRegion(y, yLength, staging);
+        interleaveUV(u, v, uvRowStride, uvPixelStride, chromaWidth, chromaHeight, staging);
+        useSource(staging, 0);
+        setLayout(YuvFormat.NV12, width, height,
+                0, yLength, yRowStride,
+                yLength, tightUV, chromaWidth * 2,
+                0, 0, 0);
+    }
+
+    /**
+     * 拷贝一帧带行填充的半平面 YUV420（MediaCodec 输出、NV21 / NV12），从当前 position 开始读取，不改变其 position。
+     * 两个平面按原始行间隔整体拷贝，上传时跳过行填充；交错色度行间隔为奇数时 GL 无法按 RG 像素描述，拷贝时重排为紧密排列。
+     *
+     * @param yRowStride  Y 平面行间隔（字节）
+     * @param uvRowStride 交错色度平面行间隔（字节）
+     * @param format      {@link YuvFormat#NV21} 或 {@link YuvFormat#NV12}
+     */
+    public void putSemiPlanar(ByteBuffer y, int yRowStride, ByteBuffer uv, int uvRowStride,
+                              int width, int height, YuvFormat format) {
+        if (!format.semiPlanar)
+            throw new IllegalArgumentException("format must be semi-planar : " + format);
+        int chromaHeight = height / 2;
+        int uvRowBytes = (width / 2) * 2;
+        int yLength = checkPlane("y", y, yRowStride, width, height);
+        int uvLength = checkPlane("uv", uv, uvRowStride, uvRowBytes, chromaHeight);
+        if (uvRowStride % 2 != 0) {
+            int tightUV = uvRowBytes * chromaHeight;
+            ByteBuffer staging = ensureStaging(yLength + tightUV);
+            staging.clear();
+            copyRegion(y, yLength, staging);
+            copyRows(uv, uvRowStride, uvRowBytes, chromaHeight, staging);
+            uvLength = tightUV;
+            uvRowStride = uvRowBytes;
+        } else {
+            ByteBuffer staging = ensureStaging(yLength + uvLength);
+            staging.clear();
+            copyRegion(y, yLength, staging);
+            copyRegion(uv, uvLength, staging);
+        }
+        useSource(stagingBuffer, 0);
+        setLayout(format, width, height,
+                0, yLength, yRowStride,
+                yLength, uvLength, uvRowStride,
+                0, 0, 0);
+    }
+
+    /**
+     * 检查平面 buffer 至少包含 rows 行，返回从第一行开头到最后一行末尾的字节数
+     */
+    private static int checkPlane(String name, ByteBuffer plane, int rowStride, int rowBytes, int rows) {
+        if (rowStride < rowBytes)
+            throw new IllegalArgumentException(name + " rowStride " + rowStride + " < " + rowBytes);
+        int length = rowStride * (rows - 1) + rowBytes;
+        if (plane.remaining() < length)
+            throw new IllegalArgumentException(name + " remaining " + plane.remaining() + " < " + length);
+        return length;
+    }
+
+    /**
+     * 从 src 的 position 开始整体拷贝 length 字节，不改变 src 的 position
+     */
+    private static void copyRegion(ByteBuffer src, int length, ByteBuffer staging) {
+        ByteBuffer region = src.duplicate();
+        region.limit(region.position() + length);
+        staging.put(region);
+    }
+
+    /**
+     * 逐行去掉行填充
+     */
+    private static void copyRows(ByteBuffer src, int rowStride, int rowBytes, int rows, ByteBuffer staging) {
+        ByteBuffer row = src.duplicate();
+        int start = src.position();
+        for (int r = 0; r < rows; r++) {
+            row.limit(start + r * rowStride + rowBytes);
+            row.position(start + r * rowStride);
+            staging.put(row);
+        }
+    }
+
+    /**
+     * 一次遍历把任意像素间隔的 U/V 重排为紧密的 UV 交错（NV12）
+     */
+    private void interleaveUV(ByteBuffer u, ByteBuffer v, int rowStride, int pixelStride,
+                              int chromaWidth, int chromaHeight, ByteBuffer staging) {
+        int rowBytes = (chromaWidth - 1) * pixelStride + 1;
+        if (rowU.length < rowBytes) {
+            rowU = new byte[rowBytes];
+            rowV = new byte[rowBytes];
+        }
+        if (rowUV.length < chromaWidth * 2) {
+            rowUV = new byte[chromaWidth * 2];
+        }
+        ByteBuffer uRow = u.duplicate();
+        ByteBuffer vRow = v.duplicate();
+        int uStart = u.position();
+        int vStart = v.position();
+        for (int r = 0; r < chromaHeight; r++) {
+            uRow.position(uStart + r * rowStride);
+            vRow.position(vStart + r * rowStride);
+            uRow.get(rowU, 0, rowBytes);
+            vRow.get(rowV, 0, rowBytes);
+            for (int x = 0, i = 0; x < chromaWidth; x++, i += pixelStride) {
+                rowUV[2 * x] = rowU[i];
+                rowUV[2 * x + 1] = rowV[i];
+            }
+            staging.put(rowUV, 0, chromaWidth * 2);
+        }
+    }
+
+    private ByteBuffer ensureStaging(int frameSize) {
+        if (stagingBuffer == null || stagingBuffer.capacity() < frameSize) {
+            stagingBuffer = ByteBuffer.allocateDirect(frameSize);
+        }
+        return stagingBuffer;
+    }
+
+    /**
+     * 紧密排列的一帧：只在数据源变化时重新生成平面视图，其余时候只重置 position/limit
+     */
+    private void setSource(ByteBuffer buffer, int offset, int width, int height, YuvFormat format) {
+        useSource(buffer, offset);
+        int ySize = width * height;
+        int chromaWidth = width / 2;
+        int chromaSize = chromaWidth * (height / 2);
+        if (format.semiPlanar) {
+            setLayout(format, width, height,
+                    0, ySize, width,
+                    ySize, chromaSize * 2, chromaWidth * 2,
+                    0, 0, 0);
+        } else {
+            setLayout(format, width, height,
+                    0, ySize, width,
+                    format.uOffset(width, height), chromaSize, chromaWidth,
+                    format.vOffset(width, height), chromaSize, chromaWidth);
+        }
+    }
+
+    /**
+     * 只在数据源变化时重新生成平面视图
+     */
+    private void useSource(ByteBuffer buffer, int offset) {
+        if (buffer != source || planes[0] == null) {
+            for (int i = 0; i < planes.length; i++) {
+                planes[i] = buffer.duplicate();
+            }
+            source = buffer;
+        }
+        sourceOffset = offset;
+    }
+
+    /**
+     * 暂存区中各平面的位置，偏移相对帧起始位置
+     */
+    private void setLayout(YuvFormat format, int width, int height,
+                           int yOffset, int yLength, int yRowStride,
+                           int uOffset, int uLength, int uRowStride,
+                           int vOffset, int vLength, int vRowStride) {
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        planeOffsets[0] = yOffset;
+        planeLengths[0] = yLength;
+        rowStrides[0] = yRowStride;
+        planeOffsets[1] = uOffset;
+        planeLengths[1] = uLength;
+        rowStrides[1] = uRowStride;
+        planeOffsets[2] = vOffset;
+        planeLengths[2] = vLength;
+        rowStrides[2] = vRowStride;
+        rewind();
+    }
+
+    /**
+     * 把平面视图重置到各自的起始位置
+     */
+    public void rewind() {
+        if (source == null) return;
+        for (int i = 0; i < getPlaneCount(); i++) {
+            slice(planes[i], sourceOffset + planeOffsets[i], planeLengths[i]);
+        }
+    }
+
+    private static void slice(ByteBuffer view, int offset, int length) {
+        view.clear();
+        view.position(offset);
+        view.limit(offset + length);
+    }
+
+    public boolean hasFrame() {
+        return source != null;
+    }
+
+    /**
+     * @param index 平面格式 0 = Y, 1 = U, 2 = V；半平面格式 0 = Y, 1 = 交错的 VU / UV
+     */
+    public ByteBuffer plane(int index) {
+        return planes[index];
+    }
+
+    /**
+     * 平面个数，平面格式为 3，半平面格式为 2
+     */
+    public int getPlaneCount() {
+        return format.semiPlanar ? 2 : 3;
+    }
+
+    /**
+     * 平面的行长度（像素），Y / U / V 为每像素 1 字节，交错色度为每像素 2 字节，
+     * 上传时作为 GL_UNPACK_ROW_LENGTH；紧密排列时等于平面宽度
+     */
+    public int getRowLength(int index) {
+        return format.semiPlanar && index == 1 ? rowStrides[1] / 2 : rowStrides[index];
+    }
+
+    public YuvFormat getFormat() {
+        return format;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,181 @@
+package com.devyk.opengl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFrameChangeDetector 判断新帧与上一帧是否相同
+ *
+ *     每个平面每隔 rowStep 行取一行（总是包含最后一行），行内每隔 columnStep 个 long 读 8 字节
+ *     （默认 8 行、2 个 long，读取约 1/16 的字节，1080p 约为一次整帧拷贝的 1/5），
+ *     混合成一个 64 位哈希，与上一帧的哈希比较；宽、高、格式变化时一定算作变化。
+ *     抽样意味着只落在未采样行里的变化会被漏掉，所以连续判为重复 maxSkippedFrames 帧后强制放行一帧，
+ *     静止画面也至少按这个间隔刷新。一个实例只跟踪一路画面，不能被多个线程同时使用。
+ * </pre>
+ */
+public class YuvFrameChangeDetector {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final int rowStep;
+    private final int columnStep;
+    private final int maxSkippedFrames;
+
+    private boolean hasPrevious;
+    private long previousHash;
+    private int previousWidth;
+    private int previousHeight;
+    private YuvFormat previousFormat;
+    private int skippedInRow;
+    private long duplicateCount;
+
+    private YuvFrameChangeDetector(Builder builder) {
+        this.rowStep = builder.rowStep;
+        this.columnStep = builder.columnStep;
+        this.maxSkippedFrames = builder.maxSkippedFrames;
+    }
+
+    public static final class Builder {
+        private int rowStep = 8;
+        private int columnStep = 2;
+        private int maxSkippedFrames = 30;
+
+        /**
+         * 每隔多少行采样一行，默认 8；1 为逐行
+         */
+        public Builder withRowStep(int rowStep) {
+            if (rowStep < 1)
+                throw new IllegalArgumentException("rowStep must be >= 1 : " + rowStep);
+            this.rowStep = rowStep;
+            return this;
+        }
+
+        /**
+         * 采样行内每隔多少个 long（8 字节）读一个，默认 2；1 为整行
+         */
+        public Builder withColumnStep(int columnStep) {
+            if (columnStep < 1)
+                throw new IllegalArgumentException("columnStep must be >= 1 : " + columnStep);
+            this.columnStep = columnStep;
+            return this;
+        }
+
+        /**
+         * 连续判为重复多少帧后强制放行一帧，默认 30；0 表示不限制
+         */
+        public Builder withMaxSkippedFrames(int maxSkippedFrames) {
+            if (maxSkippedFrames < 0)
+                throw new IllegalArgumentException("maxSkippedFrames must be >= 0 : " + maxSkippedFrames);
+            this.maxSkippedFrames = maxSkippedFrames;
+            return this;
+        }
+
+        public YuvFrameChangeDetector build() {
+            return new YuvFrameChangeDetector(this);
+        }
+    }
+
+    /**
+     * 计算这一帧的哈希并记为最新一帧
+     *
+     * @param offset 帧在 yuv 中的起始位置
+     * @return 与上一帧相同，可以跳过暂存、上传和绘制
+     */
+    public boolean isDuplicate(byte[] yuv, int offset, int width, int height, YuvFormat format) {
+        checkFrame(yuv.length - offset, width, height);
+        // 每帧包装一次、不保存，调用结束后不再引用调用方的数组。保持默认字节序（与 allocateDirect 相同），
+        // 内容相同的数组和 direct buffer 得到相同的哈希
+        return update(hash(ByteBuffer.wrap(yuv), offset, width, height, format), width, height, format);
+    }
+
+    /**
+     * 从 yuv 当前 position 开始读取，不改变其 position
+     */
+    public boolean isDuplicate(ByteBuffer yuv, int width, int height, YuvFormat format) {
+        checkFrame(yuv.remaining(), width, height);
+        return update(hash(yuv, yuv.position(), width, height, format), width, height, format);
+    }
+
+    private static void checkFrame(int length, int width, int height) {
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (length < frameSize)
+            throw new IllegalArgumentException("frame size " + length + " < " + frameSize);
+    }
+
+    private boolean update(long hash, int width, int height, YuvFormat format) {
+        boolean duplicate = hasPrevious && hash == previousHash && width == previousWidth
+                && height == previousHeight && format == previousFormat;
+        if (duplicate && maxSkippedFrames > 0 && skippedInRow >= maxSkippedFrames) {
+            duplicate = false;
+        }
+        if (duplicate) {
+            skippedInRow++;
+            duplicateCount++;
+        } else {
+            skippedInRow = 0;
+        }
+        hasPrevious = true;
+        previousHash = hash;
+        previousWidth = width;
+        previousHeight = height;
+        previousFormat = format;
+        return duplicate;
+    }
+
+    /**
+     * 忘掉上一帧，下一帧一定算作变化（例如换了画面来源）
+     */
+    public void reset() {
+        hasPrevious = false;
+        skippedInRow = 0;
+    }
+
+    /**
+     * 判为重复的总帧数
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    private long hash(ByteBuffer frame, int offset, int width, int height, YuvFormat format) {
+        long hash = hashPlane(frame, offset, width, height, 0);
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        int chroma = offset + width * height;
+        if (format.semiPlanar) {
+            return hashPlane(frame, chroma, chromaWidth * 2, chromaHeight, hash);
+        }
+        hash = hashPlane(frame, chroma, chromaWidth, chromaHeight, hash);
+        return hashPlane(frame, chroma + chromaWidth * chromaHeight, chromaWidth, chromaHeight, hash);
+    }
+
+    /**
+     * 紧密排列的平面，rowBytes 为行字节数
+     */
+    private long hashPlane(ByteBuffer frame, int offset, int rowBytes, int rows, long hash) {
+        if (rows == 0) return hash;
+        int wordStep = columnStep * 8;
+        for (int row = 0; ; row += rowStep) {
+            if (row >= rows) row = rows - 1; // 最后一行总是采样
+            int start = offset + row * rowBytes;
+            int end = start + rowBytes;
+            int i = start;
+            for (; i + 8 <= end; i += wordStep) {
+                hash = mix(hash, frame.getLong(i));
+            }
+            if (i < end) {
+                // 行尾不足 8 字节（或步长跳过了它）时补上最后 8 字节之内的部分
+                long tail = 0;
+                for (int j = Math.max(start, end - 8); j < end; j++) {
+                    tail = (tail << 8) | (frame.get(j) & 0xFF);
+                }
+                hash = mix(hash, tail);
+            }
+            if (row == rows - 1) return hash;
+        }
+    }
+
+    private static long mix(long hash, long word) {
+        hash = (hash ^ word) * MULTIPLIER;
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -0,0 +1,280 @@
+package com.devyk.opengl;
+
+import android.content.res.Resources;
+import android.opengl.GLES30;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFrameDrawer 把一帧 {@link YuvFrameBuffer} 画到当前视口
+ *
+ *     持有平面 / 半平面两个着色器程序和全屏四边形（VBO + VAO），一个 GL 上下文里只需要一份；
+ *     纹理（和可选的 PBO 环）属于每一路画面，由调用方传入。程序、纹理绑定和 uniform 经过
+ *     {@link YuvGlState} 与缓存的当前值比较，多路小画面时每帧只剩真正变化的 GL 调用。只能在 GL 线程调用。
+ * </pre>
+ */
+public class YuvFrameDrawer {
+    private static final String VERTEX_SHADER = "vertex.vsh";
+    private static final String FRAGMENT_SHADER = "fragment.fsh";
+    private static final String SEMI_PLANAR_FRAGMENT_SHADER = "fragment_semi_planar.fsh";
+    private static final int[] PLANAR_FORMATS = {GLES30.GL_RED, GLES30.GL_RED, GLES30.GL_RED};
+    private static final int[] SEMI_PLANAR_FORMATS = {GLES30.GL_RED, GLES30.GL_RG};
+
+    private ProgramUniforms program;
+    /**
+     * NV21 / NV12 使用的程序：Y + 交错色度两张纹理
+     */
+    private ProgramUniforms semiPlanarProgram;
+    /**
+     * 全屏四边形的顶点缓冲和记录了顶点属性的 VAO，每个上下文创建一次，绘制时只需要绑定 VAO
+     */
+    private int vertexBuffer;
+    private int vertexArray;
+    private final YuvGlState state = new YuvGlState();
+    private final ByteBuffer[] planes = new ByteBuffer[3];
+    /**
+     * 区域上传时与调用方的纹理坐标矩阵合成后的结果
+     */
+    private final float[] cropMatrix = new float[9];
+    /**
+     * 记录上传、绘制耗时，为 null 时不统计
+     */
+    private YuvPipelineMetrics metrics;
+
+    /**
+     * 在 onSurfaceCreated 中调用，新的 GL 上下文需要重新创建程序
+     */
+    public void init(Resources resources) {
+        init(resources, null);
+    }
+
+    /**
+     * @param programCache 程序二进制缓存，为 null 时每次从源码编译链接
+     */
+    public void init(Resources resources, YuvProgramCache programCache) {
+        state.invalidate();
+        String vertexSource = YuvProgramCache.loadSource(VERTEX_SHADER, resources);
+        program = new ProgramUniforms(createProgram(programCache, vertexSource,
+                YuvProgramCache.loadSource(FRAGMENT_SHADER, resources)), 3);
+        semiPlanarProgram = new ProgramUniforms(createProgram(programCache, vertexSource,
+                YuvProgramCache.loadSource(SEMI_PLANAR_FRAGMENT_SHADER, resources)), 2);
+        // 奇数宽度的 U/V 平面行长不是 4 的倍数，按 1 字节对齐读取
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_ALIGNMENT, 1);
+
+        // OpenGL的世界坐标系是 [-1, -1, 1, 1]，纹理的坐标系为 [0, 0, 1, 1]
+        float[] vertices = { // 前三个数字为顶点坐标(x, y, z)，后两个数字为纹理坐标(s, t)
+                // 第一个三角形
+                1f, 1f, 0f, 1f, 0f,
+                1f, -1f, 0f, 1f, 1f,
+                -1f, -1f, 0f, 0f, 1f,  // 第二个三角形
+                1f, 1f, 0f, 1f, 0f,
+                -1f, -1f, 0f, 0f, 1f,
+                -1f, 1f, 0f, 0f, 0f
+        };
+        ByteBuffer vbb = ByteBuffer.allocateDirect(vertices.length * 4); // 一个 float 是四个字节
+        vbb.order(ByteOrder.nativeOrder()); // 必须要是 native order
+        FloatBuffer vertexData = vbb.asFloatBuffer();
+        vertexData.put(vertices).position(0);
+        int[] ids = new int[1];
+        GLES30.glGenBuffers(1, ids, 0);
+        vertexBuffer = ids[0];
+        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, vertexBuffer);
+        GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, vertices.length * 4, vertexData, GLES30.GL_STATIC_DRAW);
+        GLES30.glGenVertexArrays(1, ids, 0);
+        vertexArray = ids[0];
+        state.bindVertexArray(vertexArray);
+        GLES30.glVertexAttribPointer(0, 3, GLES30.GL_FLOAT, false, 5 * 4, 0);
+        GLES30.glEnableVertexAttribArray(0);
+        GLES30.glVertexAttribPointer(1, 2, GLES30.GL_FLOAT, false, 5 * 4, 3 * 4);
+        GLES30.glEnableVertexAttribArray(1);
+        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * 在任意 GL 上下文（例如预热用的离屏上下文）中编译这里用到的程序并写入 programCache，然后删除程序
+     */
+    public static void prepare(Resources resources, YuvProgramCache programCache) {
+        String vertexSource = YuvProgramCache.loadSource(VERTEX_SHADER, resources);
+        GLES30.glDeleteProgram(programCache.getProgram(vertexSource,
+                YuvProgramCache.loadSource(FRAGMENT_SHADER, resources)));
+        GLES30.glDeleteProgram(programCache.getProgram(vertexSource,
+                YuvProgramCache.loadSource(SEMI_PLANAR_FRAGMENT_SHADER, resources)));
+    }
+
+    private static int createProgram(YuvProgramCache programCache, String vertexSource, String fragmentSource) {
+        return programCache == null ? ShaderUtil.createProgram(vertexSource, fragmentSource)
+                : programCache.getProgram(vertexSource, fragmentSource);
+    }
+
+    public void setMetrics(YuvPipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 上传 frame 到 textures 并画到当前视口
+     *
+     * @param pboUploader 为 null 时直接上传，否则通过 PBO 环上传（映射失败时这一帧退回直接上传）
+     * @param texMatrix   纹理坐标矩阵，见 {@link YuvTexCoordTransform}
+     */
+    public void draw(YuvFrameBuffer frame, YuvPlaneTextures textures, YuvPboUploader pboUploader, float[] texMatrix) {
+        draw(frame, textures, pboUploader, texMatrix, true);
+    }
+
+    /**
+     * @param upload 为 false 时不上传，直接用纹理里已有的内容重画（帧没有变化）
+     */
+    public void draw(YuvFrameBuffer frame, YuvPlaneTextures textures, YuvPboUploader pboUploader,
+                     float[] texMatrix, boolean upload) {
+        draw(frame, textures, pboUploader, texMatrix, upload, null);
+    }
+
+    /**
+     * 只上传并显示 crop 区域（数字变焦）：纹理存储仍按整帧分配，区域变化时不重新分配，
+     * 每帧只用 GL_UNPACK_SKIP_PIXELS / SKIP_ROWS 上传区域内的字节，纹理坐标随之缩放。
+     *
+     * @param crop 源图像坐标系中的区域，为 null 或超出这一帧时显示整帧
+     */
+    public void draw(YuvFrameBuffer frame, YuvPlaneTextures textures, YuvPboUploader pboUploader,
+                     float[] texMatrix, boolean upload, YuvCropRect crop) {
+        draw(frame, textures, pboUploader, texMatrix, upload, crop, null);
+    }
+
+    /**
+     * 内容大部分不变时（屏幕共享、监控）只上传变化了的行带：dirtyTracker 与上一次上传的内容比较，
+     * 变化面积不超过阈值时每段脏行带直接 glTexSubImage3D 一次（不经过 PBO），超过阈值时整帧上传
+     * （PBO 或直接上传）。设置了 crop 时整帧按区域上传，不做比较。
+     *
+     * @param dirtyTracker 与 textures 一一对应，为 null 时每次都整帧上传
+     */
+    public void draw(YuvFrameBuffer frame, YuvPlaneTextures textures, YuvPboUploader pboUploader,
+                     float[] texMatrix, boolean upload, YuvCropRect crop, YuvDirtyRegionTracker dirtyTracker) {
+        frame.rewind();
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        boolean semiPlanar = frame.getFormat().semiPlanar;
+        int planeCount = frame.getPlaneCount();
+        int[] formats = semiPlanar ? SEMI_PLANAR_FORMATS : PLANAR_FORMATS;
+        ProgramUniforms target = semiPlanar ? semiPlanarProgram : program;
+        // 1. 选择使用的程序，与上一次相同时不切换
+        state.useProgram(target.program);
+        // 2. 分辨率变化时才重新分配纹理存储，其余帧只更新内容
+        boolean reallocated = textures.ensureStorage(0, GLES30.GL_R8, width, height);
+        if (semiPlanar) {
+            reallocated |= textures.ensureStorage(1, GLES30.GL_RG8, width / 2, height / 2);
+        } else {
+            reallocated |= textures.ensureStorage(1, GLES30.GL_R8, width / 2, height / 2);
+            reallocated |= textures.ensureStorage(2, GLES30.GL_R8, width / 2, height / 2);
+        }
+        if (reallocated) {
+            // 重新创建纹理时绕过了状态缓存，纹理 id 也可能被复用；新纹理没有内容，必须上传
+            state.invalidateTextures();
+            upload = true;
+        }
+        if (crop != null && (crop.isFullFrame(width, height) || !crop.fits(width, height))) {
+            crop = null;
+        }
+        if (crop != null) {
+            textures.setRegion(0, crop.left, crop.top, crop.width, crop.height);
+            for (int i = 1; i < planeCount; i++) {
+                textures.setRegion(i, crop.left / 2, crop.top / 2, crop.width / 2, crop.height / 2);
+            }
+            texMatrix = YuvTexCoordTransform.crop(texMatrix, crop, width, height, cropMatrix);
+        } else {
+            for (int i = 0; i < planeCount; i++) {
+                textures.setRegion(i, 0, 0, 0, 0);
+            }
+        }
+        if (upload) {
+            long uploadStart = YuvPipelineMetrics.now();
+            for (int i = 0; i < planeCount; i++) {
+                planes[i] = frame.plane(i);
+                // 带行填充的平面按行长度上传，不需要在 CPU 上去掉填充
+                textures.setRowLength(i, frame.getRowLength(i));
+            }
+            boolean full = true;
+            if (dirtyTracker != null) {
+                if (crop != null || reallocated) {
+                    // 按区域上传后纹理与影子副本不一致，新纹理没有内容，都需要重新整帧比较
+                    dirtyTracker.invalidate();
+                }
+                if (crop == null) {
+                    full = dirtyTracker.update(frame);
+                }
+            }
+            if (!full) {
+                for (int i = 0; i < planeCount; i++) {
+                    textures.bind(i, i, state);
+                    for (int run = 0, runs = dirtyTracker.getRunCount(i); run < runs; run++) {
+                        textures.uploadRows(i, formats[i], planes[i],
+                                dirtyTracker.getRunTop(i, run), dirtyTracker.getRunRows(i, run));
+                    }
+                }
+            } else if (pboUploader == null || !pboUploader.upload(textures, state, planes, formats, planeCount)) {
+                for (int i = 0; i < planeCount; i++) {
+                    textures.bind(i, i, state);
+                    textures.upload(i, formats[i], planes[i]);
+                }
+            }
+            if (metrics != null) metrics.record(YuvPipelineMetrics.Stage.UPLOAD, uploadStart);
+        } else {
+            for (int i = 0; i < planeCount; i++) {
+                textures.bind(i, i, state);
+            }
+        }
+        long drawStart = YuvPipelineMetrics.now();
+        // sampler 在 init 时设置一次，这里只在值变化时更新
+        if (semiPlanar) {
+            target.setVuOrder(frame.getFormat().vFirst ? 1 : 0);
+        }
+        target.setTexMatrix(texMatrix);
+        // 3. 顶点数据已经记录在 VAO 中
+        state.bindVertexArray(vertexArray);
+        // 4. 绘制
+        GLES30.glDrawArrays(GLES30.GL_TRIANGLES, 0, 6);
+        if (metrics != null) metrics.record(YuvPipelineMetrics.Stage.DRAW, drawStart);
+    }
+
+    /**
+     * 一个程序的 uniform 当前值，相同的值不再重复设置
+     */
+    private final class ProgramUniforms {
+        final int program;
+        private final float[] texMatrix = new float[9];
+        private boolean texMatrixSet;
+        private int vuOrder = -1;
+
+        /**
+         * sampler 的 location 与纹理单元一一对应：平面格式 y/u/v = 0/1/2，半平面格式 y/uv = 0/1
+         */
+        ProgramUniforms(int program, int samplerCount) {
+            this.program = program;
+            state.useProgram(program);
+            for (int i = 0; i < samplerCount; i++) {
+                GLES30.glUniform1i(i, i);
+            }
+        }
+
+        /**
+         * vu_order 的 location=2，调用前程序需要是当前程序
+         */
+        void setVuOrder(int order) {
+            if (vuOrder == order) return;
+            GLES30.glUniform1i(2, order);
+            vuOrder = order;
+        }
+
+        /**
+         * tex_matrix 的 location=3，调用前程序需要是当前程序
+         */
+        void setTexMatrix(float[] matrix) {
+            if (texMatrixSet && Arrays.equals(texMatrix, matrix)) return;
+            GLES30.glUniformMatrix3fv(3, 1, false, matrix, 0);
+            System.arraycopy(matrix, 0, texMatrix, 0, texMatrix.length);
+            texMatrixSet = true;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.devyk.opengl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFrameMailbox 生产者（相机线程）与 GL 线程之间的无锁三缓冲
+ *
+ *     三个 {@link YuvFrameBuffer} 分别由生产者（back）、中转位（middle）、GL 线程（front）持有，
+ *     双方只通过一次 getAndSet 交换 middle，任何一方都不会等待另一方。
+ *     生产者发布时如果上一帧还没被 GL 线程取走，上一帧被覆盖并计为丢帧，始终显示最新的一帧。
+ *     publish 系列方法返回这次发布是否覆盖了未绘制的帧。只支持一个生产者线程和一个消费者线程。
+ * </pre>
+ */
+public class YuvFrameMailbox {
+    /**
+     * middle 中的帧还没有被消费者取走
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final YuvFrameBuffer[] slots = {new YuvFrameBuffer(), new YuvFrameBuffer(), new YuvFrameBuffer()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    /**
+     * 只在生产者线程访问
+     */
+    private int back = 0;
+    /**
+     * 只在消费者线程访问
+     */
+    private int front = 2;
+
+    /**
+     * 生产者：拷贝一帧 I420 并发布，返回后 i420 可以立即复用
+     */
+    public boolean publish(byte[] i420, int width, int height) {
+        slots[back].put(i420, width, height);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：拷贝一帧 I420 并发布，从 position 开始读取且不改变 position，返回后 buffer 可以立即复用
+     */
+    public boolean publish(ByteBuffer i420, int width, int height) {
+        slots[back].copy(i420, width, height);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：拷贝一帧 format 格式的 YUV420 并发布，返回后 yuv 可以立即复用
+     */
+    public boolean publish(byte[] yuv, int width, int height, YuvFormat format) {
+        slots[back].put(yuv, width, height, format);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：拷贝一帧 format 格式的 YUV420 并发布，从 position 开始读取且不改变 position
+     */
+    public boolean publish(ByteBuffer yuv, int width, int height, YuvFormat format) {
+        slots[back].copy(yuv, width, height, format);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：发布一帧内容不会再改变的 YUV420（例如只读映射的文件），direct buffer 直接引用不拷贝
+     */
+    public boolean publishReference(ByteBuffer yuv, int width, int height, YuvFormat format) {
+        slots[back].put(yuv, width, height, format);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：拷贝一帧带行填充 / 像素间隔的三平面 YUV420 并发布，见 {@link YuvFrameBuffer#putPlanes}
+     */
+    public boolean publishPlanes(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                              int uvRowStride, int uvPixelStride, int width, int height) {
+        slots[back].putPlanes(y, yRowStride, u, v, uvRowStride, uvPixelStride, width, height);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：拷贝一帧带行填充的半平面 YUV420 并发布，见 {@link YuvFrameBuffer#putSemiPlanar}
+     */
+    public boolean publishSemiPlanar(ByteBuffer y, int yRowStride, ByteBuffer uv, int uvRowStride,
+                                  int width, int height, YuvFormat format) {
+        slots[back].putSemiPlanar(y, yRowStride, uv, uvRowStride, width, height, format);
+        return swapBack();
+    }
+
+    /**
+     * 生产者：把已经填好的 frame 整个换进来发布，不拷贝。返回换下来的空闲帧，归调用方所有，
+     * 此后 frame 归三缓冲所有，调用方不能再访问
+     */
+    public YuvFrameBuffer exchange(YuvFrameBuffer frame) {
+        YuvFrameBuffer spare = slots[back];
+        slots[back] = frame;
+        swapBack();
+        return spare;
+    }
+
+    /**
+     * @return 是否覆盖了还没被取走的帧（丢帧）
+     */
+    private boolean swapBack() {
+        int previous = middle.getAndSet(back | FRESH);
+        boolean dropped = (previous & FRESH) != 0;
+        if (dropped) droppedCount.incrementAndGet();
+        publishedCount.incrementAndGet();
+        back = previous & INDEX_MASK;
+        return dropped;
+    }
+
+    /**
+     * 消费者：有新帧时换到 front
+     *
+     * @return 是否取到了新帧
+     */
+    public boolean consume() {
+        if ((middle.get() & FRESH) == 0) return false;
+        int previous = middle.getAndSet(front);
+        front = previous & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * 消费者：当前持有的帧，没有新帧时仍是上一次 {@link #consume()} 取到的帧，可以重复绘制
+     */
+    public YuvFrameBuffer front() {
+        return slots[front];
+    }
+
+    /**
+     * 已发布的帧数
+     */
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * 没来得及绘制就被新帧覆盖的帧数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,117 @@
+package com.devyk.opengl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFramePool YUV 帧缓存池
+ *
+ *     按分辨率固定帧大小（width * height * 3 / 2），容量有上限，
+ *     通过 acquire / release 显式借还，稳定运行时 采集 -> 转换 -> 渲染 不再产生垃圾。
+ * </pre>
+ */
+public class YuvFramePool {
+    /**
+     * 默认容量，采集、转换、渲染各占一帧
+     */
+    public static final int DEFAULT_CAPACITY = 3;
+
+    private final int width;
+    private final int height;
+    private final int frameSize;
+    private final ArrayBlockingQueue<byte[]> freeFrames;
+    /**
+     * 池为空时新分配的帧数，稳定运行后应该不再增长
+     */
+    private final AtomicLong allocatedCount = new AtomicLong();
+
+    public YuvFramePool(int width, int height) {
+        this(width, height, DEFAULT_CAPACITY);
+    }
+
+    public YuvFramePool(int width, int height, int capacity) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("width or height is invalid ? " + width + "x" + height);
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be > 0 : " + capacity);
+        this.width = width;
+        this.height = height;
+        this.frameSize = frameSize(width, height);
+        this.freeFrames = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * YUV420 一帧的字节数
+     */
+    public static int frameSize(int width, int height) {
+        return width * height * 3 / 2;
+    }
+
+    /**
+     * 借出一帧，池为空时新分配，内容未清零
+     */
+    public byte[] acquire() {
+        byte[] frame = freeFrames.poll();
+        if (frame == null) {
+            allocatedCount.incrementAndGet();
+            frame = new byte[frameSize];
+        }
+        return frame;
+    }
+
+    /**
+     * 归还一帧，大小不匹配或池已满时直接丢弃
+     *
+     * @return 是否回收进池
+     */
+    public boolean release(byte[] frame) {
+        if (frame == null || frame.length != frameSize) return false;
+        return freeFrames.offer(frame);
+    }
+
+    /**
+     * 预先分配满池，避免前几帧的分配
+     */
+    public void prefill() {
+        while (freeFrames.remainingCapacity() > 0) {
+            if (!freeFrames.offer(new byte[frameSize])) break;
+            allocatedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 清空池中缓存的帧
+     */
+    public void clear() {
+        freeFrames.clear();
+    }
+
+    public boolean matches(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public int getCapacity() {
+        return freeFrames.size() + freeFrames.remainingCapacity();
+    }
+
+    public int getAvailableCount() {
+        return freeFrames.size();
+    }
+
+    public long getAllocatedCount() {
+        return allocatedCount.get();
+    }
+}
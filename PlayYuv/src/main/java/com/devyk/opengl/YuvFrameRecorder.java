@@ -0,0 +1,400 @@
+package com.devyk.opengl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFrameRecorder 后台把原始帧写到文件，用于离线分析
+ *
+ *     提交时只把帧拷贝进预先分配的 direct 缓冲并放入有界队列，后台线程用 FileChannel 的聚集写
+ *     （write(ByteBuffer[])）一次写出 [FRAME 头] + Y + U + V（半平面为 Y + 交错色度）各平面的视图，
+ *     不再拼接，direct 缓冲也不需要 FileChannel 再拷贝一次。缓冲用完时按 {@link YuvRecorderFullPolicy}
+ *     丢帧或等待。可选 Y4M 文件头（只支持 I420），ffmpeg / ffplay 可以直接打开。
+ *     写盘失败后不再写入，之后提交的帧计为丢弃，{@link #close()} 时抛出。可以脱离 Android 使用。
+ * </pre>
+ */
+public class YuvFrameRecorder implements Closeable {
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final byte[] Y4M_FRAME_HEADER = "FRAME\n".getBytes(US_ASCII);
+
+    private final int width;
+    private final int height;
+    private final YuvFormat format;
+    private final int frameSize;
+    private final YuvRecorderFullPolicy fullPolicy;
+    private final boolean y4m;
+    private final FileOutputStream output;
+    private final FileChannel channel;
+    private final Thread thread;
+
+    /**
+     * 空闲缓冲与待写缓冲，缓冲总数为容量；pending 多一个位置留给结束标记
+     */
+    private final ArrayBlockingQueue<Frame> free;
+    private final ArrayBlockingQueue<Frame> pending;
+    private final Frame endOfStream = new Frame();
+
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private YuvFrameRecorder(Builder builder) throws IOException {
+        this.width = builder.width;
+        this.height = builder.height;
+        this.format = builder.format;
+        this.frameSize = YuvFormat.frameSize(width, height);
+        this.fullPolicy = builder.fullPolicy;
+        this.y4m = builder.y4m;
+        this.free = new ArrayBlockingQueue<>(builder.capacity);
+        this.pending = new ArrayBlockingQueue<>(builder.capacity + 1);
+        for (int i = 0; i < builder.capacity; i++) {
+            free.add(new Frame(width, height, format, y4m));
+        }
+        this.output = new FileOutputStream(builder.file);
+        this.channel = output.getChannel();
+        if (y4m) {
+            try {
+                String header = "YUV4MPEG2 W" + width + " H" + height
+                        + " F" + builder.frameRateNumerator + ":" + builder.frameRateDenominator
+                        + " Ip A1:1 C420jpeg XCOLORRANGE=FULL\n";
+                writeFully(new ByteBuffer[]{ByteBuffer.wrap(header.getBytes(US_ASCII))});
+            } catch (IOException e) {
+                output.close();
+                throw e;
+            }
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "YuvFrameRecorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static final class Builder {
+        private final File file;
+        private final int width;
+        private final int height;
+        private YuvFormat format = YuvFormat.I420;
+        private int capacity = 8;
+        private YuvRecorderFullPolicy fullPolicy = YuvRecorderFullPolicy.DROP;
+        private boolean y4m;
+        private int frameRateNumerator = 30;
+        private int frameRateDenominator = 1;
+
+        /**
+         * @param file   输出文件，已存在时覆盖
+         * @param width  帧宽
+         * @param height 帧高
+         */
+        public Builder(File file, int width, int height) {
+            if (width <= 0 || height <= 0)
+                throw new IllegalArgumentException("width or height is invalid ? " + width + "x" + height);
+            this.file = file;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * 帧格式，默认 {@link YuvFormat#I420}，按原样写出
+         */
+        public Builder withFormat(YuvFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * 缓冲帧数，默认 8，决定能吸收多长的写盘卡顿
+         */
+        public Builder withCapacity(int capacity) {
+            if (capacity < 1)
+                throw new IllegalArgumentException("capacity must be >= 1 : " + capacity);
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 默认 {@link YuvRecorderFullPolicy#DROP}
+         */
+        public Builder withFullPolicy(YuvRecorderFullPolicy fullPolicy) {
+            this.fullPolicy = fullPolicy;
+            return this;
+        }
+
+        /**
+         * 写成 Y4M（文件头 + 每帧 FRAME 头），默认 false 为裸帧首尾相连
+         */
+        public Builder withY4mHeader(boolean y4m) {
+            this.y4m = y4m;
+            return this;
+        }
+
+        /**
+         * Y4M 文件头中的帧率 numerator / denominator，默认 30:1
+         */
+        public Builder withFrameRate(int numerator, int denominator) {
+            if (numerator <= 0 || denominator <= 0)
+                throw new IllegalArgumentException("frame rate is invalid ? " + numerator + ":" + denominator);
+            this.frameRateNumerator = numerator;
+            this.frameRateDenominator = denominator;
+            return this;
+        }
+
+        /**
+         * 打开（创建）文件并启动写盘线程
+         */
+        public YuvFrameRecorder build() throws IOException {
+            if (file == null || format == null)
+                throw new NullPointerException("file or format is null ？");
+            if (y4m && format != YuvFormat.I420)
+                throw new IllegalArgumentException("y4m only supports I420 : " + format);
+            return new YuvFrameRecorder(this);
+        }
+    }
+
+    /**
+     * 提交一帧，拷贝后立即返回，yuv 可以复用
+     *
+     * @return 是否进入了写盘队列，false 表示丢弃（队列满、已关闭或写盘失败）
+     */
+    public boolean record(byte[] yuv) {
+        return record(yuv, 0);
+    }
+
+    /**
+     * @param offset 帧在 yuv 中的起始位置
+     */
+    public boolean record(byte[] yuv, int offset) {
+        if (yuv.length - offset < frameSize)
+            throw new IllegalArgumentException("frame size " + (yuv.length - offset) + " < " + frameSize);
+        Frame frame = acquire();
+        if (frame == null) return false;
+        frame.data.clear();
+        frame.data.put(yuv, offset, frameSize);
+        return submit(frame);
+    }
+
+    /**
+     * 从 yuv 当前 position 开始读取一帧，不改变其 position
+     */
+    public boolean record(ByteBuffer yuv) {
+        if (yuv.remaining() < frameSize)
+            throw new IllegalArgumentException("frame size " + yuv.remaining() + " < " + frameSize);
+        Frame frame = acquire();
+        if (frame == null) return false;
+        ByteBuffer source = yuv.duplicate();
+        source.limit(source.position() + frameSize);
+        frame.data.clear();
+        frame.data.put(source);
+        return submit(frame);
+    }
+
+    /**
+     * 取一个空闲缓冲，没有时按策略丢弃或等待
+     */
+    private Frame acquire() {
+        if (closed || failure != null) {
+            droppedCount.incrementAndGet();
+            return null;
+        }
+        Frame frame = free.poll();
+        if (frame == null && fullPolicy == YuvRecorderFullPolicy.BLOCK) {
+            try {
+                frame = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (frame == null) {
+            droppedCount.incrementAndGet();
+        }
+        return frame;
+    }
+
+    private boolean submit(Frame frame) {
+        // 缓冲总数不超过 pending 的容量，不会阻塞
+        pending.add(frame);
+        recordedCount.incrementAndGet();
+        return true;
+    }
+
+    private void loop() {
+        while (true) {
+            Frame frame;
+            try {
+                frame = pending.take();
+            } catch (InterruptedException e) {
+                // close 通过结束标记停止线程，中断只可能来自外部，忽略
+                continue;
+            }
+            if (frame == endOfStream) return;
+            if (failure == null) {
+                try {
+                    frame.rewind();
+                    bytesWritten.addAndGet(writeFully(frame.views));
+                    writtenCount.incrementAndGet();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                droppedCount.incrementAndGet();
+            }
+            free.offer(frame);
+        }
+    }
+
+    /**
+     * 聚集写，直到所有缓冲都写完
+     *
+     * @return 写出的字节数
+     */
+    private long writeFully(ByteBuffer[] buffers) throws IOException {
+        long total = 0;
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            total += channel.write(buffers);
+        }
+        return total;
+    }
+
+    /**
+     * 等待队列中的帧全部写完后关闭文件。调用前先停止提交，与 record 并发时最后几帧可能不会写出
+     *
+     * @throws IOException 写盘过程中出现过的错误
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        pending.add(endOfStream);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        output.close();
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * 进入写盘队列的帧数
+     */
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    /**
+     * 已写到文件的帧数
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * 队列满、关闭后或写盘失败丢弃的帧数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 已写出的帧数据字节数（含每帧的 FRAME 头，不含 Y4M 文件头）
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * 写盘失败的原因，没有失败时为 null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public YuvFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 一帧的 direct 缓冲和聚集写用的各平面视图
+     */
+    private static final class Frame {
+        final ByteBuffer data;
+        final ByteBuffer[] views;
+        final int[] offsets;
+        final int[] lengths;
+
+        /**
+         * 结束标记
+         */
+        Frame() {
+            data = null;
+            views = null;
+            offsets = null;
+            lengths = null;
+        }
+
+        Frame(int width, int height, YuvFormat format, boolean y4m) {
+            int lumaSize = width * height;
+            int chromaSize = (width / 2) * (height / 2);
+            data = ByteBuffer.allocateDirect(YuvFormat.frameSize(width, height));
+            if (format.semiPlanar) {
+                offsets = new int[]{0, lumaSize};
+                lengths = new int[]{lumaSize, chromaSize * 2};
+            } else {
+                offsets = new int[]{0, lumaSize, lumaSize + chromaSize};
+                lengths = new int[]{lumaSize, chromaSize, chromaSize};
+            }
+            int first = y4m ? 1 : 0;
+            views = new ByteBuffer[offsets.length + first];
+            if (y4m) {
+                views[0] = ByteBuffer.allocateDirect(Y4M_FRAME_HEADER.length);
+                views[0].put(Y4M_FRAME_HEADER);
+            }
+            for (int i = 0; i < offsets.length; i++) {
+                views[first + i] = data.duplicate();
+            }
+        }
+
+        /**
+         * 每次写之前把所有视图恢复到各自平面的范围
+         */
+        void rewind() {
+            int first = views.length - offsets.length;
+            if (first == 1) views[0].rewind();
+            for (int i = 0; i < offsets.length; i++) {
+                ByteBuffer view = views[first + i];
+                view.clear();
+                view.position(offsets[i]);
+                view.limit(offsets[i] + lengths[i]);
+            }
+        }
+    }
+}
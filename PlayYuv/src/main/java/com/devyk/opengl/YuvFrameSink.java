@@ -0,0 +1,16 @@
+package com.devyk.opengl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvFrameSink 接收整帧 YUV420 的一方（播放控件、拼接墙中的一路）
+ * </pre>
+ */
+public interface YuvFrameSink {
+    /**
+     * 提交一帧，从 yuv 当前 position 开始读取。
+     * 交出后 yuv 的内容不会再改变（例如只读映射的文件），实现可以直接引用而不拷贝。
+     */
+    void onFrame(ByteBuffer yuv, int width, int height, YuvFormat format);
+}
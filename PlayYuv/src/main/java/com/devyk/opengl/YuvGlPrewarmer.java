@@ -0,0 +1,88 @@
+package com.devyk.opengl;
+
+import android.content.Context;
+import android.opengl.EGL14;
+import android.opengl.EGLConfig;
+import android.opengl.EGLContext;
+import android.opengl.EGLDisplay;
+import android.opengl.EGLExt;
+import android.opengl.EGLSurface;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <pre>
+ *     desc    : This is YuvGlPrewarmer 在控件显示之前预热 GL
+ *
+ *     后台线程读取着色器源码，初始化 EGL 并创建 1x1 离屏上下文，在其中编译链接着色器程序，
+ *     写入 {@link YuvProgramCache}。之后 GLSurfaceView 的 onSurfaceCreated 直接加载程序二进制，
+ *     驱动库的加载、EGL 初始化也提前完成。每个进程只执行一次，失败时只打印日志，不影响正常渲染。
+ * </pre>
+ */
+public class YuvGlPrewarmer {
+    private static final String TAG = "YuvGlPrewarmer";
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    private YuvGlPrewarmer() {
+    }
+
+    /**
+     * 可以在主线程调用，立即返回
+     */
+    public static void prewarm(Context context) {
+        if (!started.compareAndSet(false, true)) return;
+        final Context appContext = context.getApplicationContext();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp(appContext);
+            }
+        }, TAG);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static boolean warmUp(Context context) {
+        EGLDisplay display = EGL14.eglGetDisplay(EGL14.EGL_DEFAULT_DISPLAY);
+        int[] version = new int[2];
+        if (display == EGL14.EGL_NO_DISPLAY || !EGL14.eglInitialize(display, version, 0, version, 1)) {
+            Log.w(TAG, "eglInitialize failed");
+            return false;
+        }
+        int[] configAttributes = {
+                EGL14.EGL_RENDERABLE_TYPE, EGLExt.EGL_OPENGL_ES3_BIT_KHR,
+                EGL14.EGL_SURFACE_TYPE, EGL14.EGL_PBUFFER_BIT,
+                EGL14.EGL_NONE
+        };
+        EGLConfig[] configs = new EGLConfig[1];
+        int[] configCount = new int[1];
+        if (!EGL14.eglChooseConfig(display, configAttributes, 0, configs, 0, 1, configCount, 0)
+                || configCount[0] == 0) {
+            Log.w(TAG, "no GLES 3 pbuffer config");
+            return false;
+        }
+        int[] contextAttributes = {EGL14.EGL_CONTEXT_CLIENT_VERSION, 3, EGL14.EGL_NONE};
+        EGLContext eglContext = EGL14.eglCreateContext(display, configs[0], EGL14.EGL_NO_CONTEXT, contextAttributes, 0);
+        if (eglContext == EGL14.EGL_NO_CONTEXT) {
+            Log.w(TAG, "eglCreateContext failed");
+            return false;
+        }
+        int[] surfaceAttributes = {EGL14.EGL_WIDTH, 1, EGL14.EGL_HEIGHT, 1, EGL14.EGL_NONE};
+        EGLSurface surface = EGL14.eglCreatePbufferSurface(display, configs[0], surfaceAttributes, 0);
+        try {
+            if (surface == EGL14.EGL_NO_SURFACE || !EGL14.eglMakeCurrent(display, surface, surface, eglContext)) {
+                Log.w(TAG, "eglMakeCurrent failed");
+                return false;
+            }
+            YuvFrameDrawer.prepare(context.getResources(), YuvProgramCache.getInstance(context));
+            return true;
+        } finally {
+            // 不调用 eglTerminate，默认 display 与 GLSurfaceView 共用
+            EGL14.eglMakeCurrent(display, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_CONTEXT);
+            if (surface != EGL14.EGL_NO_SURFACE) EGL14.eglDestroySurface(display, surface);
+            EGL14.eglDestroyContext(display, eglContext);
+            EGL14.eglReleaseThread();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.devyk.opengl;
+
+import android.opengl.GLES30;
+
+import java.util.Arrays;
+
+/**
+ * <pre>
+ *     desc    : This is YuvGlState 记录当前 GL 上下文的绑定状态，跳过重复的状态切换
+ *
+ *     程序、VAO、活动纹理单元和每个单元上的 2D 数组纹理与上一次相同时不再调用 GL。
+ *     一个 GL 上下文一份；上下文重建或其他代码直接修改了这些状态后需要 {@link #invalidate()}。只能在 GL 线程调用。
+ * </pre>
+ */
+public class YuvGlState {
+    private static final int MAX_UNITS = 4;
+    private static final int UNKNOWN = -1;
+
+    private int program = UNKNOWN;
+    private int vertexArray = UNKNOWN;
+    private int activeUnit = UNKNOWN;
+    private final int[] textures = new int[MAX_UNITS];
+
+    public YuvGlState() {
+        invalidate();
+    }
+
+    public void useProgram(int program) {
+        if (this.program == program) return;
+        GLES30.glUseProgram(program);
+        this.program = program;
+    }
+
+    public void bindVertexArray(int vertexArray) {
+        if (this.vertexArray == vertexArray) return;
+        GLES30.glBindVertexArray(vertexArray);
+        this.vertexArray = vertexArray;
+    }
+
+    /**
+     * 把 texture 绑定到纹理单元 unit 的 GL_TEXTURE_2D_ARRAY
+     */
+    public void bindTexture(int unit, int texture) {
+        if (textures[unit] == texture) return;
+        activeTexture(unit);
+        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D_ARRAY, texture);
+        textures[unit] = texture;
+    }
+
+    public void activeTexture(int unit) {
+        if (activeUnit == unit) return;
+        GLES30.glActiveTexture(GLES30.GL_TEXTURE0 + unit);
+        activeUnit = unit;
+    }
+
+    /**
+     * 纹理被创建、删除或在这里之外绑定过之后调用（例如 {@link YuvPlaneTextures#ensureStorage} 重新分配了存储）
+     */
+    public void invalidateTextures() {
+        activeUnit = UNKNOWN;
+        Arrays.fill(textures, UNKNOWN);
+    }
+
+    /**
+     * 新的 GL 上下文或状态被外部修改后调用
+     */
+    public void invalidate() {
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+        invalidateTextures();
+    }
+}
@@ -0,0 +1,17 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvLateFramePolicy 错过了自己那次 vsync 的帧如何处理
+ * </pre>
+ */
+public enum YuvLateFramePolicy {
+    /**
+     * 丢弃迟到的帧，每次 vsync 只显示已到期帧中最新的一帧，画面始终跟上时间线
+     */
+    DROP,
+    /**
+     * 迟到的帧也按顺序显示，每次 vsync 一帧，不丢帧但画面整体延后
+     */
+    DISPLAY
+}
@@ -0,0 +1,80 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvMetricsSnapshot 某一时刻的流水线统计
+ *
+ *     由调用方创建并反复传给 {@link YuvPipelineMetrics#snapshot(YuvMetricsSnapshot)} 填充，
+ *     读取统计不产生垃圾。耗时单位为纳秒，数组按 {@link YuvPipelineMetrics.Stage#ordinal()} 下标。
+ * </pre>
+ */
+public class YuvMetricsSnapshot {
+    private static final int STAGES = YuvPipelineMetrics.Stage.values().length;
+
+    public final long[] count = new long[STAGES];
+    public final long[] p50 = new long[STAGES];
+    public final long[] p95 = new long[STAGES];
+    public final long[] p99 = new long[STAGES];
+    public final long[] max = new long[STAGES];
+    /**
+     * 提交的帧数
+     */
+    public long submittedFrames;
+    /**
+     * 绘制的帧数
+     */
+    public long renderedFrames;
+    /**
+     * 没来得及绘制就被新帧覆盖的帧数，包括 {@link YuvPresentationQueue} 迟到和溢出丢弃的帧
+     */
+    public long droppedFrames;
+    /**
+     * 与上一帧相同、跳过了暂存、上传和绘制的帧数（不计入 submittedFrames）
+     */
+    public long skippedFrames;
+    /**
+     * 距上一次快照的提交帧率、绘制帧率
+     */
+    public float submitFps;
+    public float renderFps;
+    /**
+     * 快照时间（System.nanoTime）
+     */
+    public long timestampNanos;
+
+    public long p50(YuvPipelineMetrics.Stage stage) {
+        return p50[stage.ordinal()];
+    }
+
+    public long p95(YuvPipelineMetrics.Stage stage) {
+        return p95[stage.ordinal()];
+    }
+
+    public long p99(YuvPipelineMetrics.Stage stage) {
+        return p99[stage.ordinal()];
+    }
+
+    public long max(YuvPipelineMetrics.Stage stage) {
+        return max[stage.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("submitted=").append(submittedFrames)
+                .append(" rendered=").append(renderedFrames)
+                .append(" dropped=").append(droppedFrames)
+                .append(" skipped=").append(skippedFrames)
+                .append(" submitFps=").append(submitFps)
+                .append(" renderFps=").append(renderFps);
+        for (YuvPipelineMetrics.Stage stage : YuvPipelineMetrics.Stage.values()) {
+            int i = stage.ordinal();
+            builder.append('\n').append(stage).append(": n=").append(count[i])
+                    .append(" p50=").append(p50[i] / 1000).append("us")
+                    .append(" p95=").append(p95[i] / 1000).append("us")
+                    .append(" p99=").append(p99[i] / 1000).append("us")
+                    .append(" max=").append(max[i] / 1000).append("us");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,257 @@
+package com.devyk.opengl;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <pre>
+ *     desc    : This is YuvParallelTransformer 多核分条带执行 {@link YuvTransform} / {@link YuvRgbConverter}
+ *
+ *     把输出图像按行切成若干条带（Y 与对应的 U/V 行一起），调用线程执行第一条，其余交给 Executor。
+ *     每个条带只写自己的行，输出与串行执行逐字节一致。像素数低于阈值时直接串行，省掉线程切换。
+ *     条带任务对象预先创建，apply 过程不分配内存；同一实例的 apply 串行执行。
+ * </pre>
+ */
+public class YuvParallelTransformer {
+    /**
+     * 默认阈值，720p 以下串行
+     */
+    public static final int DEFAULT_THRESHOLD = 1280 * 720;
+
+    private final Executor executor;
+    /**
+     * 自己创建的线程池，release 时关闭
+     */
+    private final ExecutorService ownedExecutor;
+    private final int threshold;
+    private final Stripe[] stripes;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object doneLock = new Object();
+
+    private YuvTransform transform;
+    private YuvRgbConverter converter;
+    private byte[] src;
+    private byte[] dst;
+    private int[] argb;
+    private IntBuffer argbBuffer;
+    private int width;
+    private int height;
+    private volatile Throwable failure;
+
+    /**
+     * 按 CPU 核数创建
+     */
+    public YuvParallelTransformer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 并行度，内部创建 parallelism - 1 个后台线程，调用线程也参与计算
+     */
+    public YuvParallelTransformer(int parallelism) {
+        this(null, parallelism, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param executor    执行条带的线程池（例如 ForkJoinPool），为 null 时内部创建
+     * @param parallelism 条带数
+     * @param threshold   源图像像素数小于该值时串行执行
+     */
+    public YuvParallelTransformer(Executor executor, int parallelism, int threshold) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be > 0 : " + parallelism);
+        if (executor == null && parallelism > 1) {
+            ownedExecutor = Executors.newFixedThreadPool(parallelism - 1, new StripeThreadFactory());
+            executor = ownedExecutor;
+        } else {
+            ownedExecutor = null;
+        }
+        this.executor = executor;
+        this.threshold = threshold;
+        this.stripes = new Stripe[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 执行转换，输出与 {@link YuvTransform#apply(byte[], int, int, byte[])} 完全一致
+     *
+     * @param width  源图像宽
+     * @param height 源图像高
+     */
+    public synchronized void apply(YuvTransform transform, byte[] src, int width, int height, byte[] dst) {
+        transform.checkFrame(src, width, height, dst);
+        int outputHeight = transform.getOutputHeight(width, height);
+        int rowsPerStripe = rowsPerStripe(outputHeight);
+        int stripeCount = (outputHeight + rowsPerStripe - 1) / rowsPerStripe;
+        if (width * height < threshold || executor == null || stripeCount <= 1) {
+            transform.applyRows(src, width, height, dst, 0, outputHeight);
+            return;
+        }
+        this.transform = transform;
+        this.src = src;
+        this.dst = dst;
+        this.width = width;
+        this.height = height;
+        runStripes(outputHeight, rowsPerStripe, stripeCount);
+    }
+
+    /**
+     * 分条带转换成 ARGB，输出与 {@link YuvRgbConverter#convert(byte[], int, int, int[])} 完全一致
+     */
+    public synchronized void apply(YuvRgbConverter converter, byte[] src, int width, int height, int[] dst) {
+        converter.checkFrame(src, width, height, dst.length);
+        int rowsPerStripe = rowsPerStripe(height);
+        int stripeCount = (height + rowsPerStripe - 1) / rowsPerStripe;
+        if (width * height < threshold || executor == null || stripeCount <= 1) {
+            converter.convertRows(src, width, height, dst, 0, height);
+            return;
+        }
+        this.converter = converter;
+        this.src = src;
+        this.argb = dst;
+        this.width = width;
+        this.height = height;
+        runStripes(height, rowsPerStripe, stripeCount);
+    }
+
+    /**
+     * 分条带转换成 ARGB，从 dst 当前 position 开始写入，不改变其 position
+     */
+    public synchronized void apply(YuvRgbConverter converter, byte[] src, int width, int height, IntBuffer dst) {
+        converter.checkFrame(src, width, height, dst.remaining());
+        int rowsPerStripe = rowsPerStripe(height);
+        int stripeCount = (height + rowsPerStripe - 1) / rowsPerStripe;
+        if (width * height < threshold || executor == null || stripeCount <= 1) {
+            converter.convertRows(src, width, height, dst, 0, height);
+            return;
+        }
+        this.converter = converter;
+        this.src = src;
+        this.argbBuffer = dst;
+        this.width = width;
+        this.height = height;
+        runStripes(height, rowsPerStripe, stripeCount);
+    }
+
+    /**
+     * 条带按 YuvRotate.TILE 行对齐，分块旋转不会被切碎；行数为偶数，U/V 行不会跨条带
+     */
+    private int rowsPerStripe(int outputHeight) {
+        return ceilTo((outputHeight + stripes.length - 1) / stripes.length, YuvRotate.TILE);
+    }
+
+    /**
+     * 第一条在调用线程执行，其余交给 executor，全部完成后返回
+     */
+    private void runStripes(int outputHeight, int rowsPerStripe, int stripeCount) {
+        this.failure = null;
+        pending.set(stripeCount);
+        for (int i = 1; i < stripeCount; i++) {
+            Stripe stripe = stripes[i];
+            stripe.rowStart = i * rowsPerStripe;
+            stripe.rowEnd = Math.min(outputHeight, stripe.rowStart + rowsPerStripe);
+            try {
+                executor.execute(stripe);
+            } catch (RejectedExecutionException e) {
+                stripe.run();
+            }
+        }
+        stripes[0].rowStart = 0;
+        stripes[0].rowEnd = rowsPerStripe;
+        stripes[0].run();
+        awaitStripes();
+        this.transform = null;
+        this.converter = null;
+        this.src = null;
+        this.dst = null;
+        this.argb = null;
+        this.argbBuffer = null;
+        Throwable error = failure;
+        if (error != null) {
+            failure = null;
+            if (error instanceof RuntimeException) throw (RuntimeException) error;
+            if (error instanceof Error) throw (Error) error;
+            throw new RuntimeException(error);
+        }
+    }
+
+    /**
+     * 等待所有条带完成，被中断也要等完，否则其他线程还在写 dst
+     */
+    private void awaitStripes() {
+        boolean interrupted = false;
+        synchronized (doneLock) {
+            while (pending.get() > 0) {
+                try {
+                    doneLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static int ceilTo(int value, int align) {
+        return (value + align - 1) / align * align;
+    }
+
+    /**
+     * 关闭内部创建的线程池，外部传入的 Executor 由调用方管理
+     */
+    public void release() {
+        if (ownedExecutor != null) ownedExecutor.shutdown();
+    }
+
+    public int getParallelism() {
+        return stripes.length;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    private final class Stripe implements Runnable {
+        int rowStart;
+        int rowEnd;
+
+        @Override
+        public void run() {
+            try {
+                if (transform != null) {
+                    transform.applyRows(src, width, height, dst, rowStart, rowEnd);
+                } else if (argb != null) {
+                    converter.convertRows(src, width, height, argb, rowStart, rowEnd);
+                } else {
+                    converter.convertRows(src, width, height, argbBuffer, rowStart, rowEnd);
+                }
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    synchronized (doneLock) {
+                        doneLock.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class StripeThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "YuvStripe-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.devyk.opengl;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvPboUploader 通过 PBO 环异步上传平面纹理
+ *
+ *     每帧轮流使用环中的下一个 GL_PIXEL_UNPACK_BUFFER：映射（INVALIDATE，不等待旧内容）、
+ *     写入所有平面、解除映射，再让 glTexSubImage3D 按偏移从 PBO 读取。
+ *     纹理拷贝由驱动异步完成，GL 线程不再等待；环里有 2~3 个 PBO，写入本帧时
+ *     上一帧的 PBO 可能还在被读取，互不冲突。带行填充或只上传区域的平面只把需要的行
+ *     紧密写入 PBO，PBO 大小与上传的区域成正比。只能在 GL 线程调用。
+ * </pre>
+ */
+public class YuvPboUploader {
+    private static final String TAG = "YuvPboUploader";
+
+    public static final int DEFAULT_RING_SIZE = 3;
+    /**
+     * 最多支持的平面数（Y/U/V）
+     */
+    private static final int MAX_PLANES = 3;
+
+    private final int[] bufferIds;
+    private final int[] offsets;
+    private int capacity;
+    private int next;
+
+    public YuvPboUploader() {
+        this(DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * @param ringSize PBO 个数，2~3 个即可
+     */
+    public YuvPboUploader(int ringSize) {
+        if (ringSize < 1)
+            throw new IllegalArgumentException("ringSize must be > 0 : " + ringSize);
+        bufferIds = new int[ringSize];
+        offsets = new int[MAX_PLANES];
+    }
+
+    /**
+     * 把 planes 写入下一个 PBO 并更新对应平面的纹理，纹理存储需要先用
+     * {@link YuvPlaneTextures#ensureStorage(int, int, int, int)} 分配好。
+     * 第 i 个平面绑定到纹理单元 i，planes 的 position 不变。
+     *
+     * @param formats    每个平面的像素格式，例如 GL_RED
+     * @param planeCount 平面个数
+     * @return 映射失败时返回 false，调用方需要改用直接上传
+     */
+    public boolean upload(YuvPlaneTextures textures, ByteBuffer[] planes, int[] formats, int planeCount) {
+        return upload(textures, null, planes, formats, planeCount);
+    }
+
+    /**
+     * @param state 绑定状态缓存，为 null 时每个平面都重新绑定
+     */
+    public boolean upload(YuvPlaneTextures textures, YuvGlState state, ByteBuffer[] planes, int[] formats,
+                          int planeCount) {
+        int total = 0;
+        for (int i = 0; i < planeCount; i++) {
+            offsets[i] = total;
+            total += textures.isTight(i) ? planes[i].remaining() : textures.packedSize(i);
+        }
+        ensureCapacity(total);
+        GLES30.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, bufferIds[next]);
+        ByteBuffer mapped = (ByteBuffer) GLES30.glMapBufferRange(GLES30.GL_PIXEL_UNPACK_BUFFER, 0, total,
+                GLES30.GL_MAP_WRITE_BIT | GLES30.GL_MAP_INVALIDATE_BUFFER_BIT);
+        if (mapped == null) {
+            Log.w(TAG, "glMapBufferRange failed: " + GLES30.glGetError());
+            GLES30.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+            return false;
+        }
+        for (int i = 0; i < planeCount; i++) {
+            ByteBuffer plane = planes[i];
+            mapped.position(offsets[i]);
+            if (!textures.isTight(i)) {
+                textures.pack(i, plane, mapped);
+                continue;
+            }
+            int position = plane.position();
+            mapped.put(plane);
+            plane.position(position);
+        }
+        if (!GLES30.glUnmapBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER)) {
+            // 映射期间显存内容丢失（例如模式切换），这一帧改用直接上传
+            GLES30.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+            return false;
+        }
+        for (int i = 0; i < planeCount; i++) {
+            textures.bind(i, i, state);
+            textures.uploadPacked(i, formats[i], offsets[i]);
+        }
+        GLES30.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+        next = (next + 1) % bufferIds.length;
+        return true;
+    }
+
+    /**
+     * 帧变大时重新分配所有 PBO 的存储
+     */
+    private void ensureCapacity(int size) {
+        if (bufferIds[0] != 0 && capacity >= size) return;
+        if (bufferIds[0] == 0) {
+            GLES30.glGenBuffers(bufferIds.length, bufferIds, 0);
+        }
+        for (int id : bufferIds) {
+            GLES30.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, id);
+            GLES30.glBufferData(GLES30.GL_PIXEL_UNPACK_BUFFER, size, null, GLES30.GL_STREAM_DRAW);
+        }
+        GLES30.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+        capacity = size;
+    }
+
+    public int getRingSize() {
+        return bufferIds.length;
+    }
+
+    /**
+     * 删除所有 PBO
+     *
+     * @param deleteBuffers GL 上下文仍然有效时传 true，上下文已销毁时只清空记录
+     */
+    public void release(boolean deleteBuffers) {
+        if (deleteBuffers && bufferIds[0] != 0) {
+            GLES30.glDeleteBuffers(bufferIds.length, bufferIds, 0);
+        }
+        for (int i = 0; i < bufferIds.length; i++) {
+            bufferIds[i] = 0;
+        }
+        capacity = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,184 @@
+package com.devyk.opengl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     desc    : This is YuvPipelineMetrics 采集到上屏各阶段的耗时与帧数统计
+ *
+ *     各阶段用 System.nanoTime 计时，记录到 {@link YuvLatencyHistogram}；
+ *     提交、绘制、丢帧、跳过的重复帧用原子计数。记录路径不加锁、不分配。
+ *     监听器在 GL 线程每绘制 N 帧回调一次，回调参数是同一个复用的快照对象。
+ * </pre>
+ */
+public class YuvPipelineMetrics {
+    /**
+     * 流水线阶段
+     */
+    public enum Stage {
+        /**
+         * CPU 格式转换（VideoUtils / YuvTransform）
+         */
+        CONVERT,
+        /**
+         * PlayManager 提交一帧的总耗时（含暂存和 requestRender）
+         */
+        SUBMIT,
+        /**
+         * 拷贝到三缓冲槽位
+         */
+        STAGING,
+        /**
+         * 纹理上传（GL 线程上的 CPU 耗时）
+         */
+        UPLOAD,
+        /**
+         * glDrawArrays 及着色器参数设置（GL 线程上的 CPU 耗时）
+         */
+        DRAW
+    }
+
+    public interface Listener {
+        /**
+         * 在 GL 线程回调，snapshot 会被复用，需要保留时自行拷贝
+         */
+        void onMetrics(YuvMetricsSnapshot snapshot);
+    }
+
+    private final YuvLatencyHistogram[] histograms = new YuvLatencyHistogram[Stage.values().length];
+    private final AtomicLong submittedFrames = new AtomicLong();
+    private final AtomicLong renderedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+
+    private final YuvMetricsSnapshot listenerSnapshot = new YuvMetricsSnapshot();
+    private volatile Listener listener;
+    private volatile int listenerInterval;
+
+    private long lastSnapshotNanos;
+    private long lastSubmitted;
+    private long lastRendered;
+
+    public YuvPipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new YuvLatencyHistogram();
+        }
+    }
+
+    /**
+     * 阶段开始时间
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 记录从 startNanos（{@link #now()}）到现在的阶段耗时
+     */
+    public void record(Stage stage, long startNanos) {
+        histograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 提交了一帧
+     *
+     * @param dropped 这一帧覆盖了一个还没绘制的帧
+     */
+    public void onFrameSubmitted(boolean dropped) {
+        submittedFrames.incrementAndGet();
+        if (dropped) droppedFrames.incrementAndGet();
+    }
+
+    /**
+     * 提交的 count 帧没有绘制就被丢弃（{@link YuvPresentationQueue} 迟到或溢出丢弃），同时计入提交和丢帧
+     */
+    public void onFramesDropped(int count) {
+        submittedFrames.addAndGet(count);
+        droppedFrames.addAndGet(count);
+    }
+
+    /**
+     * 提交的帧与上一帧相同（{@link YuvFrameChangeDetector}），跳过了暂存、上传和绘制
+     */
+    public void onFrameSkipped() {
+        skippedFrames.incrementAndGet();
+    }
+
+    /**
+     * 绘制了一帧新帧，在 GL 线程调用，按间隔回调监听器
+     */
+    public void onFrameRendered() {
+        long rendered = renderedFrames.incrementAndGet();
+        Listener current = listener;
+        int interval = listenerInterval;
+        if (current != null && rendered % interval == 0) {
+            snapshot(listenerSnapshot);
+            current.onMetrics(listenerSnapshot);
+        }
+    }
+
+    /**
+     * 每绘制 interval 帧在 GL 线程回调一次
+     *
+     * @param listener 为 null 时取消
+     */
+    public void setListener(Listener listener, int interval) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("interval must be > 0 : " + interval);
+        this.listenerInterval = interval;
+        this.listener = listener;
+    }
+
+    public YuvLatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * 填充快照，帧率按距上一次快照的间隔计算
+     */
+    public synchronized void snapshot(YuvMetricsSnapshot out) {
+        for (int i = 0; i < histograms.length; i++) {
+            YuvLatencyHistogram histogram = histograms[i];
+            out.count[i] = histogram.getCount();
+            out.p50[i] = histogram.percentile(50);
+            out.p95[i] = histogram.percentile(95);
+            out.p99[i] = histogram.percentile(99);
+            out.max[i] = histogram.getMax();
+        }
+        long now = System.nanoTime();
+        long submitted = submittedFrames.get();
+        long rendered = renderedFrames.get();
+        out.submittedFrames = submitted;
+        out.renderedFrames = rendered;
+        out.droppedFrames = droppedFrames.get();
+        out.skippedFrames = skippedFrames.get();
+        if (lastSnapshotNanos != 0 && now > lastSnapshotNanos) {
+            float seconds = (now - lastSnapshotNanos) / 1e9f;
+            out.submitFps = (submitted - lastSubmitted) / seconds;
+            out.renderFps = (rendered - lastRendered) / seconds;
+        } else {
+            out.submitFps = 0;
+            out.renderFps = 0;
+        }
+        out.timestampNanos = now;
+        lastSnapshotNanos = now;
+        lastSubmitted = submitted;
+        lastRendered = rendered;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public synchronized void reset() {
+        for (YuvLatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        submittedFrames.set(0);
+        renderedFrames.set(0);
+        droppedFrames.set(0);
+        skippedFrames.set(0);
+        lastSnapshotNanos = 0;
+        lastSubmitted = 0;
+        lastRendered = 0;
+    }
+}
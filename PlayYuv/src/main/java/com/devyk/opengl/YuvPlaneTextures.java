@@ -0,0 +1,265 @@
+package com.devyk.opengl;
+
+import android.opengl.GLES30;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvPlaneTextures 每个平面一张不可变存储的纹理
+ *
+ *     纹理存储用 glTexStorage3D 一次性分配，之后每帧只用 glTexSubImage3D 更新内容，
+ *     驱动不需要每帧重新分配显存。纹理是只有一层的 GL_TEXTURE_2D_ARRAY：Android 的 GLES30
+ *     没有按 PBO 偏移上传 2D 纹理的 glTexSubImage2D 重载，3D 版本有，PBO 上传因此可用。
+ *     分辨率或格式变化时，不可变纹理无法重新分配，删除后重新创建对应平面的纹理。
+ *     设置了区域（{@link #setRegion}）时只上传源数据中的一个子矩形，写到纹理左上角，
+ *     用 GL_UNPACK_SKIP_PIXELS / SKIP_ROWS 跳过区域外的字节。内容大部分不变时可以只更新
+ *     变化了的整行（{@link #uploadRows}，见 {@link YuvDirtyRegionTracker}）。只能在 GL 线程调用。
+ * </pre>
+ */
+public class YuvPlaneTextures {
+    private final int[] textureIds;
+    private final int[] internalFormats;
+    private final int[] widths;
+    private final int[] heights;
+    /**
+     * 源数据行长度（像素），大于宽度时上传用 GL_UNPACK_ROW_LENGTH 跳过行填充
+     */
+    private final int[] rowLengths;
+    /**
+     * 下一次上传的源区域（像素），regionWidths 为 0 表示整个平面
+     */
+    private final int[] regionLefts;
+    private final int[] regionTops;
+    private final int[] regionWidths;
+    private final int[] regionHeights;
+
+    public YuvPlaneTextures(int planeCount) {
+        textureIds = new int[planeCount];
+        internalFormats = new int[planeCount];
+        widths = new int[planeCount];
+        heights = new int[planeCount];
+        rowLengths = new int[planeCount];
+        regionLefts = new int[planeCount];
+        regionTops = new int[planeCount];
+        regionWidths = new int[planeCount];
+        regionHeights = new int[planeCount];
+    }
+
+    /**
+     * 保证平面纹理的存储与给定格式、尺寸一致，不一致时重新创建
+     *
+     * @param internalFormat 例如 GL_R8（单通道平面）
+     * @return 是否重新分配了存储
+     */
+    public boolean ensureStorage(int plane, int internalFormat, int width, int height) {
+        if (textureIds[plane] != 0 && internalFormats[plane] == internalFormat
+                && widths[plane] == width && heights[plane] == height) {
+            return false;
+        }
+        if (textureIds[plane] != 0) {
+            GLES30.glDeleteTextures(1, textureIds, plane);
+        }
+        GLES30.glGenTextures(1, textureIds, plane);
+        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D_ARRAY, textureIds[plane]);
+        //设置环绕和过滤方式
+        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D_ARRAY, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_REPEAT);
+        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D_ARRAY, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_REPEAT);
+        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D_ARRAY, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
+        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D_ARRAY, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+        GLES30.glTexStorage3D(GLES30.GL_TEXTURE_2D_ARRAY, 1, internalFormat, width, height, 1);
+        internalFormats[plane] = internalFormat;
+        widths[plane] = width;
+        heights[plane] = height;
+        return true;
+    }
+
+    /**
+     * 激活纹理单元 unit 并绑定平面纹理
+     */
+    public void bind(int plane, int unit) {
+        GLES30.glActiveTexture(GLES30.GL_TEXTURE0 + unit);
+        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D_ARRAY, textureIds[plane]);
+    }
+
+    /**
+     * 同 {@link #bind(int, int)}，经过 state 跳过已经生效的绑定，state 为 null 时直接绑定
+     */
+    public void bind(int plane, int unit, YuvGlState state) {
+        if (state == null) {
+            bind(plane, unit);
+            return;
+        }
+        state.bindTexture(unit, textureIds[plane]);
+        // 上传作用于活动纹理单元，即使绑定没变也要切到 unit
+        state.activeTexture(unit);
+    }
+
+    /**
+     * 用 glTexSubImage3D 更新整个平面（设置了区域时只更新区域大小的左上角），调用前需要先 {@link #bind(int, int)}
+     *
+     * @param format 与存储格式对应的像素格式，例如 GL_RED
+     * @param pixels 平面数据，从 position 开始读取
+     */
+    public void upload(int plane, int format, Buffer pixels) {
+        boolean custom = beginUnpack(plane);
+        GLES30.glTexSubImage3D(GLES30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, 0, uploadWidth(plane), uploadHeight(plane), 1,
+                format, GLES30.GL_UNSIGNED_BYTE, pixels);
+        endUnpack(custom);
+    }
+
+    /**
+     * 从当前绑定的 GL_PIXEL_UNPACK_BUFFER 的 offset 处更新整个平面，调用前需要先 {@link #bind(int, int)}
+     */
+    public void upload(int plane, int format, int offset) {
+        boolean custom = beginUnpack(plane);
+        GLES30.glTexSubImage3D(GLES30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, 0, uploadWidth(plane), uploadHeight(plane), 1,
+                format, GLES30.GL_UNSIGNED_BYTE, offset);
+        endUnpack(custom);
+    }
+
+    /**
+     * 同 {@link #upload(int, int, int)}，PBO 中是 {@link #pack} 写入的紧密区域，不再跳过行填充和区域外的字节
+     */
+    void uploadPacked(int plane, int format, int offset) {
+        GLES30.glTexSubImage3D(GLES30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, 0, uploadWidth(plane), uploadHeight(plane), 1,
+                format, GLES30.GL_UNSIGNED_BYTE, offset);
+    }
+
+    /**
+     * 只更新平面中 [top, top + rows) 这些整行，源数据同样从第 top 行读取（GL_UNPACK_SKIP_ROWS），
+     * 行填充按 {@link #setRowLength} 跳过；不使用 {@link #setRegion} 设置的区域。调用前需要先 {@link #bind(int, int)}
+     *
+     * @param pixels 整个平面的数据，从 position 开始
+     */
+    public void uploadRows(int plane, int format, Buffer pixels, int top, int rows) {
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_ROW_LENGTH, rowLength(plane));
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_SKIP_ROWS, top);
+        GLES30.glTexSubImage3D(GLES30.GL_TEXTURE_2D_ARRAY, 0, 0, top, 0, widths[plane], rows, 1,
+                format, GLES30.GL_UNSIGNED_BYTE, pixels);
+        endUnpack(true);
+    }
+
+    /**
+     * 设置下一次上传时源数据的行长度（像素），0 或等于平面宽度表示紧密排列
+     */
+    public void setRowLength(int plane, int rowLength) {
+        rowLengths[plane] = rowLength;
+    }
+
+    /**
+     * 下一次上传只读取源平面中 [left, top, width, height] 的子矩形（像素），写到纹理的左上角，
+     * 上传量与区域面积成正比；纹理存储不变，采样时需要相应缩放纹理坐标
+     * （见 {@link YuvTexCoordTransform#crop}）。width 为 0 时恢复为整个平面
+     */
+    public void setRegion(int plane, int left, int top, int width, int height) {
+        boolean whole = width == 0;
+        regionLefts[plane] = whole ? 0 : left;
+        regionTops[plane] = whole ? 0 : top;
+        regionWidths[plane] = width;
+        regionHeights[plane] = whole ? 0 : height;
+    }
+
+    /**
+     * 源数据是否就是纹理大小的紧密排列，不需要任何 unpack 参数
+     */
+    boolean isTight(int plane) {
+        return regionWidths[plane] == 0 && (rowLengths[plane] == 0 || rowLengths[plane] == widths[plane]);
+    }
+
+    /**
+     * 下一次上传的数据紧密排列后的字节数
+     */
+    int packedSize(int plane) {
+        return uploadWidth(plane) * uploadHeight(plane) * bytesPerPixel(plane);
+    }
+
+    /**
+     * 把下一次上传要读取的行（跳过行填充和区域外的字节）紧密写入 dst，dst 的 position 前进，src 不变
+     *
+     * @param src 平面数据，从 position 开始
+     */
+    void pack(int plane, ByteBuffer src, ByteBuffer dst) {
+        int bytesPerPixel = bytesPerPixel(plane);
+        int rowBytes = uploadWidth(plane) * bytesPerPixel;
+        int stride = rowLength(plane) * bytesPerPixel;
+        int position = src.position();
+        int limit = src.limit();
+        int start = position + regionTops[plane] * stride + regionLefts[plane] * bytesPerPixel;
+        src.limit(src.capacity());
+        for (int row = 0, rows = uploadHeight(plane); row < rows; row++) {
+            int begin = start + row * stride;
+            src.position(begin);
+            src.limit(begin + rowBytes);
+            dst.put(src);
+            src.limit(src.capacity());
+        }
+        src.limit(limit);
+        src.position(position);
+    }
+
+    private int uploadWidth(int plane) {
+        return regionWidths[plane] == 0 ? widths[plane] : regionWidths[plane];
+    }
+
+    private int uploadHeight(int plane) {
+        return regionWidths[plane] == 0 ? heights[plane] : regionHeights[plane];
+    }
+
+    private int rowLength(int plane) {
+        return rowLengths[plane] == 0 ? widths[plane] : rowLengths[plane];
+    }
+
+    private int bytesPerPixel(int plane) {
+        return internalFormats[plane] == GLES30.GL_RG8 ? 2 : 1;
+    }
+
+    private boolean beginUnpack(int plane) {
+        if (isTight(plane)) return false;
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_ROW_LENGTH, rowLength(plane));
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_SKIP_PIXELS, regionLefts[plane]);
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_SKIP_ROWS, regionTops[plane]);
+        return true;
+    }
+
+    /**
+     * 恢复默认值，避免影响其他上传
+     */
+    private static void endUnpack(boolean custom) {
+        if (!custom) return;
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_ROW_LENGTH, 0);
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_SKIP_PIXELS, 0);
+        GLES30.glPixelStorei(GLES30.GL_UNPACK_SKIP_ROWS, 0);
+    }
+
+    public int getTextureId(int plane) {
+        return textureIds[plane];
+    }
+
+    public int getWidth(int plane) {
+        return widths[plane];
+    }
+
+    public int getHeight(int plane) {
+        return heights[plane];
+    }
+
+    /**
+     * 删除所有纹理，GL 上下文销毁后纹理已失效时只需要清空记录
+     *
+     * @param deleteTextures 上下文仍然有效时传 true
+     */
+    public void release(boolean deleteTextures) {
+        for (int i = 0; i < textureIds.length; i++) {
+            if (deleteTextures && textureIds[i] != 0) {
+                GLES30.glDeleteTextures(1, textureIds, i);
+            }
+            textureIds[i] = 0;
+            widths[i] = 0;
+            heights[i] = 0;
+            rowLengths[i] = 0;
+            setRegion(i, 0, 0, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.devyk.opengl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * <pre>
+ *     desc    : This is YuvPresentationQueue 按 PTS 排序的有界帧队列
+ *
+ *     生产者带时间戳提交，帧拷贝到队列自己的 {@link YuvFrameBuffer}；每次 vsync 调用 {@link #take(long, long)}
+ *     取出这次应该上屏的帧（没有到期的帧时返回 null，不重复绘制）。
+ *     第一帧提交时把 PTS 对齐到 {@link YuvClock} 的当前时间加上缓冲延迟，之后的帧按 PTS 差值排期，
+ *     seek 或时间线不连续时调用 {@link #flush()} 重新对齐。
+ *     队列满时丢弃最旧的帧。只依赖传入的时钟和 vsync 时间，可以脱离 Android 测试。
+ * </pre>
+ */
+public class YuvPresentationQueue {
+    private final Object lock = new Object();
+    private final YuvClock clock;
+    private final YuvLateFramePolicy latePolicy;
+    private final YuvRenderTiming renderTiming;
+    private final long latencyNanos;
+    private final YuvPipelineMetrics metrics;
+
+    /**
+     * 待显示的帧，按显示时间升序
+     */
+    private final YuvFrameBuffer[] frames;
+    private final long[] presentTimes;
+    private int size;
+    /**
+     * 空闲帧，总数比容量多一个：生产者拷贝或 vsync 线程交换时各自临时持有一个
+     */
+    private final ArrayDeque<YuvFrameBuffer> free;
+
+    private boolean anchored;
+    /**
+     * 显示时间 = PTS + ptsOffset
+     */
+    private long ptsOffset;
+    /**
+     * 取空闲帧时挤掉了最旧的待显示帧，只在生产者线程使用
+     */
+    private boolean evicted;
+
+    private long submittedCount;
+    private long presentedCount;
+    private long lateDroppedCount;
+    private long overflowDroppedCount;
+
+    private YuvPresentationQueue(Builder builder) {
+        this.clock = builder.clock;
+        this.latePolicy = builder.latePolicy;
+        this.renderTiming = builder.renderTiming;
+        this.latencyNanos = builder.latencyNanos;
+        this.metrics = builder.metrics;
+        this.frames = new YuvFrameBuffer[builder.capacity];
+        this.presentTimes = new long[builder.capacity];
+        this.free = new ArrayDeque<>(builder.capacity + 1);
+        for (int i = 0; i <= builder.capacity; i++) {
+            free.add(new YuvFrameBuffer());
+        }
+    }
+
+    public static final class Builder {
+        private int capacity = 4;
+        private YuvClock clock = YuvClock.SYSTEM;
+        private YuvLateFramePolicy latePolicy = YuvLateFramePolicy.DROP;
+        private YuvRenderTiming renderTiming = YuvRenderTiming.NEAREST_VSYNC;
+        private long latencyNanos;
+        private YuvPipelineMetrics metrics;
+
+        /**
+         * 最多缓存的待显示帧数，默认 4
+         */
+        public Builder withCapacity(int capacity) {
+            if (capacity < 1)
+                throw new IllegalArgumentException("capacity must be >= 1 : " + capacity);
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder withClock(YuvClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * 默认 {@link YuvLateFramePolicy#DROP}
+         */
+        public Builder withLateFramePolicy(YuvLateFramePolicy latePolicy) {
+            this.latePolicy = latePolicy;
+            return this;
+        }
+
+        /**
+         * 默认 {@link YuvRenderTiming#NEAREST_VSYNC}
+         */
+        public Builder withRenderTiming(YuvRenderTiming renderTiming) {
+            this.renderTiming = renderTiming;
+            return this;
+        }
+
+        /**
+         * 第一帧在提交后多久上屏，用来吸收生产者的抖动，默认 0
+         */
+        public Builder withLatencyNanos(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+            return this;
+        }
+
+        /**
+         * 迟到和溢出丢弃的帧同时记入 metrics 的提交数和丢帧数（上屏的帧由渲染器记录），默认不记录
+         */
+        public Builder withMetrics(YuvPipelineMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public YuvPresentationQueue build() {
+            return new YuvPresentationQueue(this);
+        }
+    }
+
+    /**
+     * 生产者：拷贝一帧并按 PTS 入队，返回后 yuv 可以复用
+     *
+     * @param ptsNanos 显示时间戳（纳秒），只使用帧之间的差值
+     * @return 是否因为队列已满丢弃了最旧的帧
+     */
+    public boolean submit(byte[] yuv, int width, int height, YuvFormat format, long ptsNanos) {
+        YuvFrameBuffer frame = obtain(ptsNanos);
+        try {
+            frame.put(yuv, width, height, format);
+        } catch (RuntimeException e) {
+            recycle(frame);
+            throw e;
+        }
+        return enqueue(frame, ptsNanos);
+    }
+
+    /**
+     * 生产者：拷贝一帧并按 PTS 入队，从 position 开始读取且不改变 position
+     */
+    public boolean submit(ByteBuffer yuv, int width, int height, YuvFormat format, long ptsNanos) {
+        YuvFrameBuffer frame = obtain(ptsNanos);
+        try {
+            frame.copy(yuv, width, height, format);
+        } catch (RuntimeException e) {
+            recycle(frame);
+            throw e;
+        }
+        return enqueue(frame, ptsNanos);
+    }
+
+    /**
+     * 生产者：入队一帧内容不会再改变的数据（例如只读映射的文件切片），direct buffer 直接引用不拷贝
+     */
+    public boolean submitReference(ByteBuffer yuv, int width, int height, YuvFormat format, long ptsNanos) {
+        YuvFrameBuffer frame = obtain(ptsNanos);
+        try {
+            frame.put(yuv, width, height, format);
+        } catch (RuntimeException e) {
+            recycle(frame);
+            throw e;
+        }
+        return enqueue(frame, ptsNanos);
+    }
+
+    private YuvFrameBuffer obtain(long ptsNanos) {
+        synchronized (lock) {
+            if (!anchored) {
+                ptsOffset = clock.nanoTime() + latencyNanos - ptsNanos;
+                anchored = true;
+            }
+            evicted = size == frames.length;
+            if (evicted) {
+                overflowDroppedCount++;
+                if (metrics != null) metrics.onFramesDropped(1);
+                return removeFirst(1);
+            }
+            return free.poll();
+        }
+    }
+
+    private boolean enqueue(YuvFrameBuffer frame, long ptsNanos) {
+        synchronized (lock) {
+            long presentTime = ptsNanos + ptsOffset;
+            // 通常按顺序到达，从尾部找插入位置
+            int index = size;
+            while (index > 0 && presentTimes[index - 1] > presentTime) {
+                frames[index] = frames[index - 1];
+                presentTimes[index] = presentTimes[index - 1];
+                index--;
+            }
+            frames[index] = frame;
+            presentTimes[index] = presentTime;
+            size++;
+            submittedCount++;
+            return evicted;
+        }
+    }
+
+    /**
+     * 取出这次 vsync 应该上屏的帧，用完后把换下来的帧交给 {@link #recycle(YuvFrameBuffer)}
+     *
+     * @param displayTimeNanos 这次绘制的画面实际显示的时间，通常是 Choreographer 的 frameTimeNanos 加一个刷新周期
+     * @param intervalNanos    屏幕刷新周期
+     * @return 没有到期的帧时返回 null，此时不需要重新绘制
+     */
+    public YuvFrameBuffer take(long displayTimeNanos, long intervalNanos) {
+        synchronized (lock) {
+            if (size == 0) return null;
+            if (renderTiming == YuvRenderTiming.IMMEDIATE) {
+                presentedCount++;
+                return removeFirst(1);
+            }
+            long deadline = displayTimeNanos;
+            if (renderTiming == YuvRenderTiming.NEAREST_VSYNC) deadline += intervalNanos / 2;
+            int due = 0;
+            while (due < size && presentTimes[due] <= deadline) {
+                due++;
+            }
+            if (due == 0) return null;
+            presentedCount++;
+            if (latePolicy == YuvLateFramePolicy.DISPLAY) {
+                return removeFirst(1);
+            }
+            // 同一次 vsync 到期的多帧只能显示一帧，较旧的都已错过自己的时机
+            lateDroppedCount += due - 1;
+            if (metrics != null && due > 1) metrics.onFramesDropped(due - 1);
+            return removeFirst(due);
+        }
+    }
+
+    /**
+     * 移除最前面 count 帧，返回最后一帧，其余放回空闲列表
+     */
+    private YuvFrameBuffer removeFirst(int count) {
+        for (int i = 0; i < count - 1; i++) {
+            free.add(frames[i]);
+        }
+        YuvFrameBuffer frame = frames[count - 1];
+        System.arraycopy(frames, count, frames, 0, size - count);
+        System.arraycopy(presentTimes, count, presentTimes, 0, size - count);
+        for (int i = size - count; i < size; i++) {
+            frames[i] = null;
+        }
+        size -= count;
+        return frame;
+    }
+
+    /**
+     * 归还一个空闲帧（通常是与 {@link YuvFrameMailbox#exchange(YuvFrameBuffer)} 换下来的帧）
+     */
+    public void recycle(YuvFrameBuffer frame) {
+        synchronized (lock) {
+            free.add(frame);
+        }
+    }
+
+    /**
+     * 丢弃所有待显示的帧，下一帧重新对齐时间线（seek、切换源后调用）
+     */
+    public void flush() {
+        synchronized (lock) {
+            for (int i = 0; i < size; i++) {
+                free.add(frames[i]);
+                frames[i] = null;
+            }
+            size = 0;
+            anchored = false;
+        }
+    }
+
+    public boolean isEmpty() {
+        synchronized (lock) {
+            return size == 0;
+        }
+    }
+
+    /**
+     * 待显示的帧数
+     */
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /**
+     * 下一帧的显示时间，队列为空时返回 Long.MAX_VALUE
+     */
+    public long nextPresentTime() {
+        synchronized (lock) {
+            return size == 0 ? Long.MAX_VALUE : presentTimes[0];
+        }
+    }
+
+    public long getSubmittedCount() {
+        synchronized (lock) {
+            return submittedCount;
+        }
+    }
+
+    public long getPresentedCount() {
+        synchronized (lock) {
+            return presentedCount;
+        }
+    }
+
+    /**
+     * {@link YuvLateFramePolicy#DROP} 时因为迟到丢弃的帧数
+     */
+    public long getLateDroppedCount() {
+        synchronized (lock) {
+            return lateDroppedCount;
+        }
+    }
+
+    /**
+     * 队列已满被挤掉的帧数
+     */
+    public long getOverflowDroppedCount() {
+        synchronized (lock) {
+            return overflowDroppedCount;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.devyk.opengl;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.opengl.GLES30;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <pre>
+ *     desc    : This is YuvProgramCache 着色器程序二进制缓存
+ *
+ *     第一次编译链接后用 glGetProgramBinary 取出程序二进制，保存在内存和磁盘（cacheDir/yuv_programs）；
+ *     之后新的 GL 上下文（重建 Activity、Surface 丢失）直接 glProgramBinary 加载，跳过编译链接。
+ *     key 是着色器源码与 GL_VENDOR / GL_RENDERER / GL_VERSION 的 SHA-1，驱动升级后自动失效；
+ *     加载失败时删除缓存并退回源码编译。着色器源码读取一次后也缓存在内存中。
+ * </pre>
+ */
+public class YuvProgramCache {
+    private static final String TAG = "YuvProgramCache";
+    private static final String DIRECTORY = "yuv_programs";
+    private static final int MAGIC = 0x59505243; // "YPRC"
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile YuvProgramCache instance;
+    private static final ConcurrentHashMap<String, String> sources = new ConcurrentHashMap<>();
+
+    private final File directory;
+    private final ConcurrentHashMap<String, Binary> binaries = new ConcurrentHashMap<>();
+
+    private YuvProgramCache(File directory) {
+        this.directory = directory;
+    }
+
+    public static YuvProgramCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (YuvProgramCache.class) {
+                if (instance == null) {
+                    instance = new YuvProgramCache(new File(context.getApplicationContext().getCacheDir(), DIRECTORY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 读取 assets 中的着色器源码，每个文件只读一次
+     */
+    public static String loadSource(String fileName, Resources resources) {
+        String source = sources.get(fileName);
+        if (source == null) {
+            source = ShaderUtil.loadFromAssets(fileName, resources);
+            if (source != null) sources.put(fileName, source);
+        }
+        return source;
+    }
+
+    /**
+     * 在当前 GL 上下文中创建程序，优先使用缓存的二进制，只能在 GL 线程调用
+     */
+    public int getProgram(String vertexSource, String fragmentSource) {
+        if (!binarySupported()) {
+            return ShaderUtil.createProgram(vertexSource, fragmentSource);
+        }
+        String key = key(vertexSource, fragmentSource);
+        Binary binary = binaries.get(key);
+        if (binary == null) {
+            binary = read(key);
+        }
+        if (binary != null) {
+            int program = load(binary);
+            if (program != GLES30.GL_NONE) {
+                binaries.put(key, binary);
+                return program;
+            }
+            // 驱动拒绝了缓存的二进制（例如驱动更新而版本字符串没变），删除后重新编译
+            binaries.remove(key);
+            new File(directory, key).delete();
+        }
+        int program = ShaderUtil.createProgram(vertexSource, fragmentSource, true);
+        if (program != GLES30.GL_NONE) {
+            binary = retrieve(program);
+            if (binary != null) {
+                binaries.put(key, binary);
+                write(key, binary);
+            }
+        }
+        return program;
+    }
+
+    private static boolean binarySupported() {
+        int[] count = new int[1];
+        GLES30.glGetIntegerv(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, count, 0);
+        return count[0] > 0;
+    }
+
+    private static String key(String vertexSource, String fragmentSource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(vertexSource.getBytes(UTF_8));
+            digest.update((byte) 0);
+            digest.update(fragmentSource.getBytes(UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(GLES30.glGetString(GLES30.GL_VENDOR)).getBytes(UTF_8));
+            digest.update(String.valueOf(GLES30.glGetString(GLES30.GL_RENDERER)).getBytes(UTF_8));
+            digest.update(String.valueOf(GLES30.glGetString(GLES30.GL_VERSION)).getBytes(UTF_8));
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int load(Binary binary) {
+        int program = GLES30.glCreateProgram();
+        if (program == GLES30.GL_NONE) return GLES30.GL_NONE;
+        ByteBuffer data = ByteBuffer.allocateDirect(binary.data.length);
+        data.put(binary.data).position(0);
+        GLES30.glProgramBinary(program, binary.format, data, binary.data.length);
+        int[] linkStatus = new int[1];
+        GLES30.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
+        if (linkStatus[0] == GLES30.GL_FALSE) {
+            Log.w(TAG, "program binary rejected, recompile");
+            GLES30.glDeleteProgram(program);
+            return GLES30.GL_NONE;
+        }
+        return program;
+    }
+
+    private static Binary retrieve(int program) {
+        int[] length = new int[1];
+        GLES30.glGetProgramiv(program, GLES30.GL_PROGRAM_BINARY_LENGTH, length, 0);
+        if (length[0] <= 0) return null;
+        ByteBuffer data = ByteBuffer.allocateDirect(length[0]);
+        int[] format = new int[1];
+        GLES30.glGetProgramBinary(program, length[0], length, 0, format, 0, data);
+        if (GLES30.glGetError() != GLES30.GL_NO_ERROR || length[0] <= 0) return null;
+        byte[] bytes = new byte[length[0]];
+        data.get(bytes);
+        return new Binary(format[0], bytes);
+    }
+
+    private Binary read(String key) {
+        File file = new File(directory, key);
+        if (!file.isFile()) return null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if (in.readInt() != MAGIC) throw new IOException("bad magic");
+            int format = in.readInt();
+            int length = in.readInt();
+            if (length <= 0 || length > file.length()) throw new IOException("bad length " + length);
+            byte[] data = new byte[length];
+            in.readFully(data);
+            return new Binary(format, data);
+        } catch (IOException e) {
+            Log.w(TAG, "read " + file + " failed : " + e);
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * 先写临时文件再改名，其他线程（例如预热线程）同时读取时不会读到半个文件
+     */
+    private void write(String key, Binary binary) {
+        if (!directory.isDirectory() && !directory.mkdirs()) return;
+        File temp = new File(directory, key + "." + Thread.currentThread().getId() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(temp));
+            out.writeInt(MAGIC);
+            out.writeInt(binary.format);
+            out.writeInt(binary.data.length);
+            out.write(binary.data);
+            out.close();
+            out = null;
+            if (!temp.renameTo(new File(directory, key))) temp.delete();
+        } catch (IOException e) {
+            Log.w(TAG, "write " + temp + " failed : " + e);
+            temp.delete();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class Binary {
+        final int format;
+        final byte[] data;
+
+        Binary(int format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvRecorderFullPolicy 写盘跟不上、录制队列满时如何处理新帧
+ * </pre>
+ */
+public enum YuvRecorderFullPolicy {
+    /**
+     * 丢弃新帧并计数，提交线程（预览）从不等待
+     */
+    DROP,
+    /**
+     * 提交线程等待写盘线程空出缓冲，不丢帧，但可能拖慢预览
+     */
+    BLOCK
+}
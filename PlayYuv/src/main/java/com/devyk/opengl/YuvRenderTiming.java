@@ -0,0 +1,21 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvRenderTiming 帧在哪一次 vsync 上屏
+ * </pre>
+ */
+public enum YuvRenderTiming {
+    /**
+     * 上屏时间离显示时间最近的那次 vsync，最多提前半个刷新周期
+     */
+    NEAREST_VSYNC,
+    /**
+     * 显示时间之后的第一次 vsync，不会提前上屏
+     */
+    NOT_BEFORE_PTS,
+    /**
+     * 忽略显示时间，按 PTS 顺序每次 vsync 上屏一帧
+     */
+    IMMEDIATE
+}
@@ -0,0 +1,179 @@
+package com.devyk.opengl;
+
+import java.nio.IntBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is YuvRgbConverter 在 CPU 上把 YUV420 转成 ARGB
+ *
+ *     用于缩略图、截图、分析等拿不到 GPU 的场景。系数与 fragment.fsh 相同（BT.601 全范围，
+ *     u/v 以 127.5 为中心），每个色度值乘系数的结果预先算成 16 位定点查找表，饱和也查表，
+ *     每个像素只有整数加法和移位，结果与着色器输出相差不超过 1。
+ *     输出为 0xAARRGGBB（与 Bitmap.setPixels 一致），按行独立计算，可以交给
+ *     {@link YuvParallelTransformer#apply(YuvRgbConverter, byte[], int, int, int[])} 分条带并行。
+ * </pre>
+ */
+public class YuvRgbConverter {
+    private static final int SHIFT = 16;
+    private static final int HALF = 1 << (SHIFT - 1);
+    /**
+     * y + 色度项的取值范围约为 [-227, 482]，加上偏移后作为 CLAMP 的下标
+     */
+    private static final int CLAMP_OFFSET = 384;
+
+    private static final int[] R_V = new int[256];
+    private static final int[] G_U = new int[256];
+    private static final int[] G_V = new int[256];
+    private static final int[] B_U = new int[256];
+    private static final int[] CLAMP = new int[1024];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i - 127.5;
+            // 四舍五入用的 0.5 合进表里：R / B 加在 R_V / B_U，G 的两项相减，加在 G_V（取负）
+            R_V[i] = (int) Math.round(1.4022 * c * (1 << SHIFT)) + HALF;
+            B_U[i] = (int) Math.round(1.771 * c * (1 << SHIFT)) + HALF;
+            G_U[i] = (int) Math.round(0.3456 * c * (1 << SHIFT));
+            G_V[i] = (int) Math.round(0.7145 * c * (1 << SHIFT)) - HALF;
+        }
+        for (int i = 0; i < CLAMP.length; i++) {
+            CLAMP[i] = Math.max(0, Math.min(255, i - CLAMP_OFFSET));
+        }
+    }
+
+    private final YuvFormat format;
+    /**
+     * {@link #convert(byte[], int, int)} 复用的输出
+     */
+    private int[] output = new int[0];
+    /**
+     * 输出到 direct IntBuffer 时每个线程的行缓存
+     */
+    private final ThreadLocal<int[]> rowBuffers = new ThreadLocal<>();
+
+    /**
+     * @param format 源数据格式，I420 / YV12 / NV21 / NV12 都支持
+     */
+    public YuvRgbConverter(YuvFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * 转换到内部复用的数组，下一次调用会覆盖上一次的结果
+     *
+     * @return 长度至少为 width * height 的 ARGB 数组
+     */
+    public int[] convert(byte[] src, int width, int height) {
+        int pixels = width * height;
+        if (output.length < pixels) {
+            output = new int[pixels];
+        }
+        convert(src, width, height, output);
+        return output;
+    }
+
+    /**
+     * 转换到调用方提供的 dst，不做任何分配
+     */
+    public void convert(byte[] src, int width, int height, int[] dst) {
+        checkFrame(src, width, height, dst.length);
+        convertRows(src, width, height, dst, 0, height);
+    }
+
+    /**
+     * 从 dst 当前 position 开始写入 width * height 个像素，不改变其 position
+     */
+    public void convert(byte[] src, int width, int height, IntBuffer dst) {
+        checkFrame(src, width, height, dst.remaining());
+        convertRows(src, width, height, dst, 0, height);
+    }
+
+    /**
+     * 只转换 [rowStart, rowEnd) 行，各行之间互不依赖，不做参数检查
+     */
+    public void convertRows(byte[] src, int width, int height, int[] dst, int rowStart, int rowEnd) {
+        for (int row = rowStart; row < rowEnd; row++) {
+            convertRow(src, width, height, row, dst, row * width);
+        }
+    }
+
+    /**
+     * 同 {@link #convertRows(byte[], int, int, int[], int, int)}，行号相对 dst 当前 position
+     */
+    public void convertRows(byte[] src, int width, int height, IntBuffer dst, int rowStart, int rowEnd) {
+        if (dst.hasArray()) {
+            int base = dst.arrayOffset() + dst.position();
+            convertRows(src, width, height, dst.array(), base, rowStart, rowEnd);
+            return;
+        }
+        int[] row = rowBuffers.get();
+        if (row == null || row.length < width) {
+            row = new int[width];
+            rowBuffers.set(row);
+        }
+        IntBuffer target = dst.duplicate();
+        int base = dst.position();
+        for (int r = rowStart; r < rowEnd; r++) {
+            convertRow(src, width, height, r, row, 0);
+            target.position(base + r * width);
+            target.put(row, 0, width);
+        }
+    }
+
+    private void convertRows(byte[] src, int width, int height, int[] dst, int base, int rowStart, int rowEnd) {
+        for (int row = rowStart; row < rowEnd; row++) {
+            convertRow(src, width, height, row, dst, base + row * width);
+        }
+    }
+
+    private void convertRow(byte[] src, int width, int height, int row, int[] dst, int dstOffset) {
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        int pixelStride = format.chromaPixelStride();
+        // 奇数宽高的最后一列 / 一行没有自己的色度，沿用前一个
+        int chromaRow = Math.min(row >> 1, chromaHeight - 1) * format.chromaRowStride(width);
+        int uRow = format.uOffset(width, height) + chromaRow;
+        int vRow = format.vOffset(width, height) + chromaRow;
+        int yIndex = row * width;
+        int out = dstOffset;
+        for (int i = 0, c = 0; i < chromaWidth; i++, c += pixelStride) {
+            int u = src[uRow + c] & 0xFF;
+            int v = src[vRow + c] & 0xFF;
+            int r = R_V[v];
+            int g = -G_U[u] - G_V[v];
+            int b = B_U[u];
+            int y = (src[yIndex++] & 0xFF) << SHIFT;
+            dst[out++] = pack(y + r, y + g, y + b);
+            y = (src[yIndex++] & 0xFF) << SHIFT;
+            dst[out++] = pack(y + r, y + g, y + b);
+        }
+        if ((width & 1) != 0) {
+            int c = (chromaWidth - 1) * pixelStride;
+            int u = src[uRow + c] & 0xFF;
+            int v = src[vRow + c] & 0xFF;
+            int y = (src[yIndex] & 0xFF) << SHIFT;
+            dst[out] = pack(y + R_V[v], y - G_U[u] - G_V[v], y + B_U[u]);
+        }
+    }
+
+    private static int pack(int r, int g, int b) {
+        return 0xFF000000
+                | CLAMP[(r >> SHIFT) + CLAMP_OFFSET] << 16
+                | CLAMP[(g >> SHIFT) + CLAMP_OFFSET] << 8
+                | CLAMP[(b >> SHIFT) + CLAMP_OFFSET];
+    }
+
+    void checkFrame(byte[] src, int width, int height, int dstPixels) {
+        if (width < 2 || height < 2)
+            throw new IllegalArgumentException("width or height is invalid ? " + width + "x" + height);
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (src.length < frameSize)
+            throw new IllegalArgumentException("src size " + src.length + " < " + frameSize);
+        if (dstPixels < width * height)
+            throw new IllegalArgumentException("dst pixels " + dstPixels + " < " + width * height);
+    }
+
+    public YuvFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,83 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvRotate 分块（tile）旋转单个平面
+ *
+ *     逐列按 width 步长读取源数据时，720p 以上几乎每次读取都会 cache miss。
+ *     这里按 TILE x TILE 分块处理：块内读取的源数据只涉及 TILE 条 cache line，
+ *     写入的目标数据是连续的，输出和逐列旋转完全一致。
+ * </pre>
+ */
+public class YuvRotate {
+    /**
+     * 块大小，一个块读取 TILE 条源数据 cache line、写入 TILE 段连续目标数据，都能放进 L1
+     */
+    public static final int TILE = 32;
+
+    private YuvRotate() {
+    }
+
+    /**
+     * 把平面旋转 90 度，目标平面宽高与源平面互换
+     *
+     * @param src            源数据
+     * @param srcOffset      源平面起始位置
+     * @param srcPixelStride 源平面相邻像素间隔，NV21 的 VU 平面为 2
+     * @param srcRowStride   源平面行间隔（字节）
+     * @param width          源平面宽（像素）
+     * @param height         源平面高（像素）
+     * @param dst            目标数据
+     * @param dstOffset      目标平面起始位置
+     * @param dstPixelStride 目标平面相邻像素间隔
+     * @param dstRowStride   目标平面行间隔（字节）
+     * @param clockwise      true 顺时针（Rightwise），false 逆时针（Leftwise）
+     */
+    public static void rotate90(byte[] src, int srcOffset, int srcPixelStride, int srcRowStride,
+                                int width, int height,
+                                byte[] dst, int dstOffset, int dstPixelStride, int dstRowStride,
+                                boolean clockwise) {
+        if (clockwise) {
+            // dst(r, c) = src(height - 1 - c, r)
+            copyTiled(src, srcOffset + (height - 1) * srcRowStride, -srcRowStride, srcPixelStride,
+                    dst, dstOffset, dstPixelStride, dstRowStride, height, width);
+        } else {
+            // dst(r, c) = src(c, width - 1 - r)
+            copyTiled(src, srcOffset + (width - 1) * srcPixelStride, srcRowStride, -srcPixelStride,
+                    dst, dstOffset, dstPixelStride, dstRowStride, height, width);
+        }
+    }
+
+    /**
+     * 按目标平面分块拷贝：dst(r, c) = src[srcOrigin + c * colStep + r * rowStep]
+     *
+     * @param dstWidth  目标平面宽
+     * @param dstHeight 目标平面高
+     */
+    static void copyTiled(byte[] src, int srcOrigin, int colStep, int rowStep,
+                          byte[] dst, int dstOffset, int dstPixelStride, int dstRowStride,
+                          int dstWidth, int dstHeight) {
+        for (int tileRow = 0; tileRow < dstHeight; tileRow += TILE) {
+            int rowEnd = Math.min(tileRow + TILE, dstHeight);
+            for (int tileCol = 0; tileCol < dstWidth; tileCol += TILE) {
+                int colCount = Math.min(TILE, dstWidth - tileCol);
+                for (int r = tileRow; r < rowEnd; r++) {
+                    int s = srcOrigin + tileCol * colStep + r * rowStep;
+                    int d = dstOffset + r * dstRowStride + tileCol * dstPixelStride;
+                    if (dstPixelStride == 1) {
+                        for (int c = 0; c < colCount; c++) {
+                            dst[d + c] = src[s];
+                            s += colStep;
+                        }
+                    } else {
+                        for (int c = 0; c < colCount; c++) {
+                            dst[d] = src[s];
+                            s += colStep;
+                            d += dstPixelStride;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
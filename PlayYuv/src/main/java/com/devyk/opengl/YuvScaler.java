@@ -0,0 +1,223 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvScaler YUV420 缩小，输出格式与输入相同
+ *
+ *     每个平面单独缩放：源尺寸正好是目标的整数倍（2x、4x、1080p -> 180p 的 6x 等）时做盒式抽取，
+ *     N x N 个像素取平均；否则做双线性插值，坐标按像素中心对齐，8 位定点权重。
+ *     半平面格式的交错色度按像素间隔 2 处理，U/V 不需要拆开。
+ *     双线性的坐标表按源 / 目标尺寸缓存，输出缓冲可以复用，稳定运行时不分配。
+ *     一个实例不能被多个线程同时使用。
+ * </pre>
+ */
+public class YuvScaler {
+    private static final int FRACTION_BITS = 8;
+    private static final int ONE = 1 << FRACTION_BITS;
+
+    private final Axis lumaX = new Axis();
+    private final Axis lumaY = new Axis();
+    private final Axis chromaX = new Axis();
+    private final Axis chromaY = new Axis();
+    /**
+     * {@link #scale(byte[], int, int, YuvFormat, int, int)} 复用的输出
+     */
+    private byte[] output = new byte[0];
+
+    /**
+     * 缩放到内部复用的缓冲，下一次调用会覆盖上一次的结果
+     *
+     * @return 长度至少为 {@link YuvFormat#frameSize(int, int)} 的目标帧
+     */
+    public byte[] scale(byte[] src, int srcWidth, int srcHeight, YuvFormat format, int dstWidth, int dstHeight) {
+        int frameSize = YuvFormat.frameSize(dstWidth, dstHeight);
+        if (output.length < frameSize) {
+            output = new byte[frameSize];
+        }
+        scale(src, 0, srcWidth, srcHeight, format, output, dstWidth, dstHeight);
+        return output;
+    }
+
+    /**
+     * 缩放到调用方提供的 dst，不做任何分配（双线性坐标表只在尺寸变化时重建）
+     *
+     * @param srcOffset 源帧在 src 中的起始位置
+     */
+    public void scale(byte[] src, int srcOffset, int srcWidth, int srcHeight, YuvFormat format,
+                      byte[] dst, int dstWidth, int dstHeight) {
+        if (dstWidth < 2 || dstHeight < 2 || dstWidth > srcWidth || dstHeight > srcHeight)
+            throw new IllegalArgumentException("only downscale is supported : "
+                    + srcWidth + "x" + srcHeight + " -> " + dstWidth + "x" + dstHeight);
+        int srcSize = YuvFormat.frameSize(srcWidth, srcHeight);
+        if (src.length - srcOffset < srcSize)
+            throw new IllegalArgumentException("src size " + (src.length - srcOffset) + " < " + srcSize);
+        int dstSize = YuvFormat.frameSize(dstWidth, dstHeight);
+        if (dst.length < dstSize)
+            throw new IllegalArgumentException("dst size " + dst.length + " < " + dstSize);
+
+        scalePlane(src, srcOffset, srcWidth, 1, srcWidth, srcHeight,
+                dst, 0, dstWidth, dstWidth, dstHeight, lumaX, lumaY);
+        int srcChromaWidth = srcWidth / 2;
+        int srcChromaHeight = srcHeight / 2;
+        int dstChromaWidth = dstWidth / 2;
+        int dstChromaHeight = dstHeight / 2;
+        int pixelStride = format.chromaPixelStride();
+        int srcRowStride = format.chromaRowStride(srcWidth);
+        int dstRowStride = format.chromaRowStride(dstWidth);
+        int srcChroma = srcOffset + srcWidth * srcHeight;
+        int dstChroma = dstWidth * dstHeight;
+        if (format.semiPlanar) {
+            // 交错的两个分量各自按间隔 2 缩放
+            for (int component = 0; component < 2; component++) {
+                scalePlane(src, srcChroma + component, srcRowStride, pixelStride, srcChromaWidth, srcChromaHeight,
+                        dst, dstChroma + component, dstRowStride, dstChromaWidth, dstChromaHeight, chromaX, chromaY);
+            }
+        } else {
+            int srcPlane = srcChromaWidth * srcChromaHeight;
+            int dstPlane = dstChromaWidth * dstChromaHeight;
+            for (int component = 0; component < 2; component++) {
+                scalePlane(src, srcChroma + component * srcPlane, srcRowStride, 1, srcChromaWidth, srcChromaHeight,
+                        dst, dstChroma + component * dstPlane, dstRowStride, dstChromaWidth, dstChromaHeight,
+                        chromaX, chromaY);
+            }
+        }
+    }
+
+    private static void scalePlane(byte[] src, int srcOffset, int srcRowStride, int pixelStride,
+                                   int srcWidth, int srcHeight,
+                                   byte[] dst, int dstOffset, int dstRowStride, int dstWidth, int dstHeight,
+                                   Axis xAxis, Axis yAxis) {
+        if (dstWidth == 0 || dstHeight == 0) return;
+        int factor = srcWidth / dstWidth;
+        if (factor * dstWidth == srcWidth && factor * dstHeight == srcHeight) {
+            if (factor == 1) {
+                copyPlane(src, srcOffset, srcRowStride, pixelStride, dst, dstOffset, dstRowStride, dstWidth, dstHeight);
+            } else if (factor == 2) {
+                box2(src, srcOffset, srcRowStride, pixelStride, dst, dstOffset, dstRowStride, dstWidth, dstHeight);
+            } else {
+                box(src, srcOffset, srcRowStride, pixelStride, factor, dst, dstOffset, dstRowStride,
+                        dstWidth, dstHeight);
+            }
+            return;
+        }
+        xAxis.update(srcWidth, dstWidth);
+        yAxis.update(srcHeight, dstHeight);
+        bilinear(src, srcOffset, srcRowStride, pixelStride, dst, dstOffset, dstRowStride, dstWidth, dstHeight,
+                xAxis, yAxis);
+    }
+
+    private static void copyPlane(byte[] src, int srcOffset, int srcRowStride, int pixelStride,
+                                  byte[] dst, int dstOffset, int dstRowStride, int width, int height) {
+        for (int y = 0; y < height; y++) {
+            int s = srcOffset + y * srcRowStride;
+            int d = dstOffset + y * dstRowStride;
+            if (pixelStride == 1) {
+                System.arraycopy(src, s, dst, d, width);
+                continue;
+            }
+            for (int x = 0; x < width; x++, s += pixelStride, d += pixelStride) {
+                dst[d] = src[s];
+            }
+        }
+    }
+
+    /**
+     * 2x2 取平均，四舍五入
+     */
+    private static void box2(byte[] src, int srcOffset, int srcRowStride, int pixelStride,
+                             byte[] dst, int dstOffset, int dstRowStride, int width, int height) {
+        int step = pixelStride * 2;
+        for (int y = 0; y < height; y++) {
+            int s0 = srcOffset + 2 * y * srcRowStride;
+            int s1 = s0 + srcRowStride;
+            int d = dstOffset + y * dstRowStride;
+            for (int x = 0; x < width; x++, s0 += step, s1 += step, d += pixelStride) {
+                int sum = (src[s0] & 0xFF) + (src[s0 + pixelStride] & 0xFF)
+                        + (src[s1] & 0xFF) + (src[s1 + pixelStride] & 0xFF);
+                dst[d] = (byte) ((sum + 2) >> 2);
+            }
+        }
+    }
+
+    /**
+     * factor x factor 取平均，四舍五入；factor 为 2 的幂（4x）时用移位代替除法
+     */
+    private static void box(byte[] src, int srcOffset, int srcRowStride, int pixelStride, int factor,
+                            byte[] dst, int dstOffset, int dstRowStride, int width, int height) {
+        int area = factor * factor;
+        int half = area / 2;
+        int shift = (factor & (factor - 1)) == 0 ? Integer.numberOfTrailingZeros(area) : -1;
+        int step = pixelStride * factor;
+        for (int y = 0; y < height; y++) {
+            int rowStart = srcOffset + factor * y * srcRowStride;
+            int d = dstOffset + y * dstRowStride;
+            for (int x = 0, s = rowStart; x < width; x++, s += step, d += pixelStride) {
+                int sum = 0;
+                for (int j = 0, row = s; j < factor; j++, row += srcRowStride) {
+                    for (int i = 0, p = row; i < factor; i++, p += pixelStride) {
+                        sum += src[p] & 0xFF;
+                    }
+                }
+                dst[d] = (byte) (shift >= 0 ? (sum + half) >> shift : (sum + half) / area);
+            }
+        }
+    }
+
+    private static void bilinear(byte[] src, int srcOffset, int srcRowStride, int pixelStride,
+                                 byte[] dst, int dstOffset, int dstRowStride, int width, int height,
+                                 Axis xAxis, Axis yAxis) {
+        int[] x0 = xAxis.first;
+        int[] x1 = xAxis.second;
+        int[] fx = xAxis.fraction;
+        for (int y = 0; y < height; y++) {
+            int row0 = srcOffset + yAxis.first[y] * srcRowStride;
+            int row1 = srcOffset + yAxis.second[y] * srcRowStride;
+            int fy = yAxis.fraction[y];
+            int d = dstOffset + y * dstRowStride;
+            for (int x = 0; x < width; x++, d += pixelStride) {
+                int a = x0[x] * pixelStride;
+                int b = x1[x] * pixelStride;
+                int f = fx[x];
+                int top = (src[row0 + a] & 0xFF) * (ONE - f) + (src[row0 + b] & 0xFF) * f;
+                int bottom = (src[row1 + a] & 0xFF) * (ONE - f) + (src[row1 + b] & 0xFF) * f;
+                dst[d] = (byte) ((top * (ONE - fy) + bottom * fy + (1 << (2 * FRACTION_BITS - 1)))
+                        >> (2 * FRACTION_BITS));
+            }
+        }
+    }
+
+    /**
+     * 一个方向上每个目标像素对应的两个源像素和插值权重
+     */
+    private static final class Axis {
+        int srcLength = -1;
+        int dstLength = -1;
+        int[] first = new int[0];
+        int[] second = new int[0];
+        int[] fraction = new int[0];
+
+        void update(int srcLength, int dstLength) {
+            if (this.srcLength == srcLength && this.dstLength == dstLength) return;
+            if (first.length < dstLength) {
+                first = new int[dstLength];
+                second = new int[dstLength];
+                fraction = new int[dstLength];
+            }
+            double scale = (double) srcLength / dstLength;
+            for (int i = 0; i < dstLength; i++) {
+                // 像素中心对齐：目标像素 i 的中心落在源坐标 (i + 0.5) * scale - 0.5
+                double position = Math.max(0, (i + 0.5) * scale - 0.5);
+                int index = Math.min((int) position, srcLength - 1);
+                first[i] = index;
+                second[i] = Math.min(index + 1, srcLength - 1);
+                fraction[i] = (int) Math.round((position - index) * ONE);
+                if (fraction[i] == ONE) {
+                    first[i] = second[i];
+                    fraction[i] = 0;
+                }
+            }
+            this.srcLength = srcLength;
+            this.dstLength = dstLength;
+        }
+    }
+}
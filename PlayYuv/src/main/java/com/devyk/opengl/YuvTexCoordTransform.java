@@ -0,0 +1,100 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvTexCoordTransform 在 GPU 上旋转、镜像画面的纹理坐标矩阵
+ *
+ *     顶点着色器用 3x3 矩阵把屏幕上的纹理坐标 (s, t) 映射回源图像坐标，旋转、镜像不再需要
+ *     CPU 搬运像素。语义与 {@link YuvTransform} 一致：顺时针旋转，镜像作用在旋转之后的画面上。
+ * </pre>
+ */
+public class YuvTexCoordTransform {
+    /**
+     * 单位矩阵（列主序），不旋转不镜像
+     */
+    public static final float[] IDENTITY = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+
+    private YuvTexCoordTransform() {
+    }
+
+    /**
+     * 计算纹理坐标矩阵
+     *
+     * @param rotation 顺时针旋转角度 0 / 90 / 180 / 270
+     * @return 列主序的 3x3 矩阵，可以直接传给 glUniformMatrix3fv
+     */
+    public static float[] matrix(int rotation, boolean flipHorizontal, boolean flipVertical) {
+        // 以画面中心为原点：先撤销镜像，再撤销旋转，得到源坐标 = A * 屏幕坐标
+        float fx = flipHorizontal ? -1 : 1;
+        float fy = flipVertical ? -1 : 1;
+        float a, b, c, d; // A = [a b; c d]，src.x = a * x + b * y，src.y = c * x + d * y
+        switch (rotation) {
+            case 0:
+                a = fx;
+                b = 0;
+                c = 0;
+                d = fy;
+                break;
+            case 90:
+                // 顺时针 90 度后屏幕上的 (x, y) 来自源图像的 (y, -x)
+                a = 0;
+                b = fy;
+                c = -fx;
+                d = 0;
+                break;
+            case 180:
+                a = -fx;
+                b = 0;
+                c = 0;
+                d = -fy;
+                break;
+            case 270:
+                a = 0;
+                b = -fy;
+                c = fx;
+                d = 0;
+                break;
+            default:
+                throw new IllegalArgumentException("rotation must be 0/90/180/270 : " + rotation);
+        }
+        // 平移：src = A * (p - 0.5) + 0.5
+        float tx = 0.5f - 0.5f * (a + b);
+        float ty = 0.5f - 0.5f * (c + d);
+        return new float[]{a, c, 0, b, d, 0, tx, ty, 1};
+    }
+
+    /**
+     * 区域上传（{@link YuvPlaneTextures#setRegion}）时把 matrix 算出的 [0, 1] 坐标缩放到纹理左上角的
+     * crop.width x crop.height 部分：out = C * matrix。区域比纹理小的方向向内收缩 1 个亮度像素
+     * （半个色度像素），线性过滤不会采到区域外的旧内容。
+     *
+     * @param width  纹理（整帧）宽
+     * @param height 纹理（整帧）高
+     * @param out    结果，可以复用，不能与 matrix 是同一个数组
+     */
+    public static float[] crop(float[] matrix, YuvCropRect crop, int width, int height, float[] out) {
+        float sx = 1;
+        float tx = 0;
+        if (crop.width < width) {
+            sx = (crop.width - 2f) / width;
+            tx = 1f / width;
+        }
+        float sy = 1;
+        float ty = 0;
+        if (crop.height < height) {
+            sy = (crop.height - 2f) / height;
+            ty = 1f / height;
+        }
+        // 仿射矩阵第三行为 (0, 0, 1)，C 只作用于前两行
+        out[0] = sx * matrix[0];
+        out[1] = sy * matrix[1];
+        out[2] = matrix[2];
+        out[3] = sx * matrix[3];
+        out[4] = sy * matrix[4];
+        out[5] = matrix[5];
+        out[6] = sx * matrix[6] + tx;
+        out[7] = sy * matrix[7] + ty;
+        out[8] = matrix[8];
+        return out;
+    }
+}
@@ -0,0 +1,396 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvTransform 格式转换 + 旋转 + 镜像 一次完成
+ *
+ *     由描述（源格式、目标格式、顺时针旋转角度、水平/垂直镜像）构建，不可变，可以缓存复用。
+ *     每个目标平面只遍历一次：目标像素 (x, y) 对应的源位置是 x、y 的线性函数，
+ *     所以格式转换、旋转、镜像都折算成 起点 + 列步长 + 行步长，不需要先旋转再转换。
+ *     镜像作用在旋转之后的画面上。
+ * </pre>
+ */
+public class YuvTransform {
+    private final YuvFormat srcFormat;
+    private final YuvFormat dstFormat;
+    private final int rotation;
+    private final boolean flipHorizontal;
+    private final boolean flipVertical;
+
+    private YuvTransform(YuvFormat srcFormat, YuvFormat dstFormat, int rotation,
+                         boolean flipHorizontal, boolean flipVertical) {
+        this.srcFormat = srcFormat;
+        this.dstFormat = dstFormat;
+        this.rotation = rotation;
+        this.flipHorizontal = flipHorizontal;
+        this.flipVertical = flipVertical;
+    }
+
+    public static final class Builder {
+        private YuvFormat srcFormat = YuvFormat.NV21;
+        private YuvFormat dstFormat = YuvFormat.I420;
+        private int rotation;
+        private boolean flipHorizontal;
+        private boolean flipVertical;
+
+        public Builder withSourceFormat(YuvFormat srcFormat) {
+            this.srcFormat = srcFormat;
+            return this;
+        }
+
+        public Builder withDestinationFormat(YuvFormat dstFormat) {
+            this.dstFormat = dstFormat;
+            return this;
+        }
+
+        /**
+         * @param rotation 顺时针旋转角度 0 / 90 / 180 / 270
+         */
+        public Builder withRotation(int rotation) {
+            this.rotation = rotation;
+            return this;
+        }
+
+        public Builder withFlipHorizontal(boolean flipHorizontal) {
+            this.flipHorizontal = flipHorizontal;
+            return this;
+        }
+
+        public Builder withFlipVertical(boolean flipVertical) {
+            this.flipVertical = flipVertical;
+            return this;
+        }
+
+        public YuvTransform build() {
+            if (srcFormat == null || dstFormat == null)
+                throw new NullPointerException("srcFormat or dstFormat is null ？");
+            if (rotation != 0 && rotation != 90 && rotation != 180 && rotation != 270)
+                throw new IllegalArgumentException("rotation must be 0/90/180/270 : " + rotation);
+            return new YuvTransform(srcFormat, dstFormat, rotation, flipHorizontal, flipVertical);
+        }
+    }
+
+    /**
+     * 执行转换，src 与 dst 不能是同一个数组
+     *
+     * @param width  源图像宽
+     * @param height 源图像高
+     */
+    public void apply(byte[] src, int width, int height, byte[] dst) {
+        checkFrame(src, width, height, dst);
+        applyRows(src, width, height, dst, 0, getOutputHeight(width, height));
+    }
+
+    /**
+     * 只转换 crop 区域，输出 crop.width x crop.height（旋转 90/270 度时宽高互换）的紧密帧。
+     * 裁剪与转换在同一次遍历里完成，只读取区域内的字节，耗时与区域面积成正比
+     *
+     * @param width  源图像宽
+     * @param height 源图像高
+     * @param crop   源图像坐标系中的区域
+     */
+    public void apply(byte[] src, int width, int height, YuvCropRect crop, byte[] dst) {
+        if (src == dst)
+            throw new IllegalArgumentException("in-place transform is not supported");
+        crop.checkFits(width, height);
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (src.length < frameSize)
+            throw new IllegalArgumentException("src size " + src.length + " < " + frameSize);
+        int cropSize = YuvFormat.frameSize(crop.width, crop.height);
+        if (dst.length < cropSize)
+            throw new IllegalArgumentException("dst size " + dst.length + " < " + cropSize);
+        applyRows(src, width, height, crop.left, crop.top, crop.width, crop.height,
+                dst, 0, getOutputHeight(crop.width, crop.height));
+    }
+
+    void checkFrame(byte[] src, int width, int height, byte[] dst) {
+        if (src == dst)
+            throw new IllegalArgumentException("in-place transform is not supported");
+        int frameSize = YuvFormat.frameSize(width, height);
+        if (src.length < frameSize || dst.length < frameSize)
+            throw new IllegalArgumentException("src or dst size < " + frameSize);
+    }
+
+    /**
+     * 只输出目标图像 [rowStart, rowEnd) 这些行，不同行段之间互不影响，可以并行执行。
+     * rowStart 必须是偶数，色度对应输出 [rowStart / 2, rowEnd / 2) 行，rowEnd 为输出高度时包含色度最后一行。
+     */
+    void applyRows(byte[] src, int width, int height, byte[] dst, int rowStart, int rowEnd) {
+        applyRows(src, width, height, 0, 0, width, height, dst, rowStart, rowEnd);
+    }
+
+    /**
+     * 只处理源图像中 [left, top, cropWidth, cropHeight] 的区域（都是偶数），把它当作一帧完整的图像输出：
+     * 源的行间隔仍按整帧宽度计算，只是起点移到区域左上角
+     */
+    private void applyRows(byte[] src, int width, int height, int left, int top, int cropWidth, int cropHeight,
+                           byte[] dst, int rowStart, int rowEnd) {
+        int dstWidth = getOutputWidth(cropWidth, cropHeight);
+        int dstHeight = getOutputHeight(cropWidth, cropHeight);
+        // Y
+        transformPlane(src, top * width + left, 1, width, cropWidth, cropHeight,
+                dst, 0, 1, dstWidth, rowStart, rowEnd);
+        // U / V 的步长相同，只是起始位置不同
+        int cw = cropWidth / 2;
+        int ch = cropHeight / 2;
+        int chromaStart = rowStart / 2;
+        int chromaEnd = rowEnd == dstHeight ? getOutputHeight(cw, ch) : rowEnd / 2;
+        if (chromaStart >= chromaEnd) return;
+        int srcPixelStride = srcFormat.chromaPixelStride();
+        int srcRowStride = srcFormat.chromaRowStride(width);
+        int dstPixelStride = dstFormat.chromaPixelStride();
+        int dstRowStride = dstFormat.chromaRowStride(dstWidth);
+        int chromaOrigin = (top / 2) * srcRowStride + (left / 2) * srcPixelStride;
+        int srcU = srcFormat.uOffset(width, height) + chromaOrigin;
+        int srcV = srcFormat.vOffset(width, height) + chromaOrigin;
+        int dstU = dstFormat.uOffset(dstWidth, dstHeight);
+        int dstV = dstFormat.vOffset(dstWidth, dstHeight);
+        if (isRowOrder(cw, ch, srcPixelStride, srcRowStride)) {
+            // 按行读取时 U/V 在同一次遍历里完成，交错的源数据只读一遍
+            int origin = srcIndex(0, 0, cw, ch, srcPixelStride, srcRowStride);
+            int colStep = srcIndex(1, 0, cw, ch, srcPixelStride, srcRowStride) - origin;
+            int rowStep = srcIndex(0, 1, cw, ch, srcPixelStride, srcRowStride) - origin;
+            origin += chromaStart * rowStep;
+            int dstStart = chromaStart * dstRowStride;
+            copyRowsUV(src, origin + srcU, origin + srcV, colStep, rowStep,
+                    dst, dstU + dstStart, dstV + dstStart, dstPixelStride, dstRowStride,
+                    getOutputWidth(cw, ch), chromaEnd - chromaStart);
+        } else {
+            transformPlane(src, srcU, srcPixelStride, srcRowStride, cw, ch,
+                    dst, dstU, dstPixelStride, dstRowStride, chromaStart, chromaEnd);
+            transformPlane(src, srcV, srcPixelStride, srcRowStride, cw, ch,
+                    dst, dstV, dstPixelStride, dstRowStride, chromaStart, chromaEnd);
+        }
+    }
+
+    /**
+     * 不旋转或旋转 180 度时源数据按行读取，不需要分块
+     */
+    private boolean isRowOrder(int width, int height, int pixelStride, int rowStride) {
+        int origin = srcIndex(0, 0, width, height, pixelStride, rowStride);
+        int colStep = srcIndex(1, 0, width, height, pixelStride, rowStride) - origin;
+        return colStep == pixelStride || colStep == -pixelStride;
+    }
+
+    /**
+     * 单个平面一次遍历目标行 [rowStart, rowEnd)：dst(x, y) = src[origin + x * colStep + y * rowStep]
+     *
+     * @param width  源平面宽
+     * @param height 源平面高
+     */
+    private void transformPlane(byte[] src, int srcOffset, int srcPixelStride, int srcRowStride,
+                                int width, int height,
+                                byte[] dst, int dstOffset, int dstPixelStride, int dstRowStride,
+                                int rowStart, int rowEnd) {
+        int dstWidth = getOutputWidth(width, height);
+        int origin = srcIndex(0, 0, width, height, srcPixelStride, srcRowStride);
+        int colStep = srcIndex(1, 0, width, height, srcPixelStride, srcRowStride) - origin;
+        int rowStep = srcIndex(0, 1, width, height, srcPixelStride, srcRowStride) - origin;
+        origin += srcOffset + rowStart * rowStep;
+        dstOffset += rowStart * dstRowStride;
+        if (isRowOrder(width, height, srcPixelStride, srcRowStride)) {
+            copyRows(src, origin, colStep, rowStep, dst, dstOffset, dstPixelStride, dstRowStride,
+                    dstWidth, rowEnd - rowStart);
+        } else {
+            YuvRotate.copyTiled(src, origin, colStep, rowStep, dst, dstOffset, dstPixelStride, dstRowStride,
+                    dstWidth, rowEnd - rowStart);
+        }
+    }
+
+    /**
+     * 目标平面坐标 (x, y) 对应的源平面下标（不含平面起始位置）
+     */
+    private int srcIndex(int x, int y, int width, int height, int pixelStride, int rowStride) {
+        boolean swapSize = rotation == 90 || rotation == 270;
+        int dstWidth = swapSize ? height : width;
+        int dstHeight = swapSize ? width : height;
+        // 先撤销镜像
+        if (flipHorizontal) x = dstWidth - 1 - x;
+        if (flipVertical) y = dstHeight - 1 - y;
+        // 再撤销旋转
+        int sx;
+        int sy;
+        switch (rotation) {
+            case 90:
+                sx = y;
+                sy = height - 1 - x;
+                break;
+            case 180:
+                sx = width - 1 - x;
+                sy = height - 1 - y;
+                break;
+            case 270:
+                sx = width - 1 - y;
+                sy = x;
+                break;
+            default:
+                sx = x;
+                sy = y;
+                break;
+        }
+        return sy * rowStride + sx * pixelStride;
+    }
+
+    private static void copyRows(byte[] src, int srcOrigin, int colStep, int rowStep,
+                                 byte[] dst, int dstOffset, int dstPixelStride, int dstRowStride,
+                                 int dstWidth, int dstHeight) {
+        if (rowStep == dstWidth * colStep && dstRowStride == dstWidth * dstPixelStride) {
+            // 源和目标的行都首尾相连（不旋转或旋转 180 度且无行填充），整个平面当作一行处理
+            dstWidth *= dstHeight;
+            dstHeight = 1;
+        }
+        for (int r = 0; r < dstHeight; r++) {
+            int s = srcOrigin + r * rowStep;
+            int d = dstOffset + r * dstRowStride;
+            if (dstPixelStride == 1 && colStep == 1) {
+                System.arraycopy(src, s, dst, d, dstWidth);
+                continue;
+            }
+            if (dstPixelStride == 1 && colStep == -1) {
+                reverseCopy(src, s, dst, d, dstWidth);
+                continue;
+            }
+            for (int c = 0; c < dstWidth; c++) {
+                dst[d] = src[s];
+                s += colStep;
+                d += dstPixelStride;
+            }
+        }
+    }
+
+    /**
+     * dst[d + i] = src[s - i]，单独成方法让 JIT 单独优化这个循环（180 度 / 水平镜像的 Y 平面）
+     */
+    private static void reverseCopy(byte[] src, int s, byte[] dst, int d, int length) {
+        for (int i = s + 1; i > s + 1 - length; --i) {
+            dst[d++] = src[i - 1];
+        }
+    }
+
+    /**
+     * 同 {@link #copyRows}，一次遍历同时写 U、V 两个平面
+     */
+    private static void copyRowsUV(byte[] src, int srcU, int srcV, int colStep, int rowStep,
+                                   byte[] dst, int dstU, int dstV, int dstPixelStride, int dstRowStride,
+                                   int dstWidth, int dstHeight) {
+        if (rowStep == dstWidth * colStep && dstRowStride == dstWidth * dstPixelStride) {
+            dstWidth *= dstHeight;
+            dstHeight = 1;
+        }
+        for (int r = 0; r < dstHeight; r++) {
+            int su = srcU + r * rowStep;
+            int sv = srcV + r * rowStep;
+            int du = dstU + r * dstRowStride;
+            int dv = dstV + r * dstRowStride;
+            if (colStep == 2 && (su - sv == 1 || sv - su == 1)) {
+                // 源为不旋转的 NV21 / NV12，按 8 字节一组拆分或交换
+                if (copyInterleavedUV(src, su, sv, dst, du, dv, dstPixelStride, dstWidth)) continue;
+            }
+            if (dstPixelStride == 1) {
+                // 目标为 I420 / YV12，常见步长用常量展开，便于 JIT 消除边界检查
+                switch (colStep) {
+                    case 1:
+                        System.arraycopy(src, su, dst, du, dstWidth);
+                        System.arraycopy(src, sv, dst, dv, dstWidth);
+                        continue;
+                    case -1:
+                    case 2:
+                    case -2:
+                        copyUV(src, su, sv, colStep, dst, du, dv, dstWidth);
+                        continue;
+                    default:
+                        break;
+                }
+            }
+            for (int c = 0; c < dstWidth; c++) {
+                dst[du] = src[su];
+                dst[dv] = src[sv];
+                su += colStep;
+                sv += colStep;
+                du += dstPixelStride;
+                dv += dstPixelStride;
+            }
+        }
+    }
+
+    /**
+     * 源 U/V 相邻交错时的快速路径，目标为平面格式时拆分，目标同为交错格式时直接拷贝或交换字节对
+     *
+     * @return 是否已处理
+     */
+    private static boolean copyInterleavedUV(byte[] src, int su, int sv, byte[] dst, int du, int dv,
+                                             int dstPixelStride, int length) {
+        int srcStart = Math.min(su, sv);
+        if (dstPixelStride == 1) {
+            if (su < sv) {
+                YuvSwar.deinterleave(src, srcStart, dst, du, dst, dv, length);
+            } else {
+                YuvSwar.deinterleave(src, srcStart, dst, dv, dst, du, length);
+            }
+            return true;
+        }
+        if (dstPixelStride == 2 && (du - dv == 1 || dv - du == 1)) {
+            int dstStart = Math.min(du, dv);
+            if (du - dv == su - sv) {
+                System.arraycopy(src, srcStart, dst, dstStart, length * 2);
+            } else {
+                YuvSwar.swapPairs(src, srcStart, dst, dstStart, length);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * dst[du + i] = src[su + i * step]，V 同理，step 为 -1 / 2 / -2
+     */
+    private static void copyUV(byte[] src, int su, int sv, int step, byte[] dst, int du, int dv, int length) {
+        if (step == 2) {
+            for (int i = 0; i < length; i++) {
+                dst[du + i] = src[su + 2 * i];
+                dst[dv + i] = src[sv + 2 * i];
+            }
+        } else if (step == -2) {
+            for (int i = 0; i < length; i++) {
+                dst[du + i] = src[su - 2 * i];
+                dst[dv + i] = src[sv - 2 * i];
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                dst[du + i] = src[su - i];
+                dst[dv + i] = src[sv - i];
+            }
+        }
+    }
+
+    /**
+     * @return 输出图像宽，旋转 90/270 度时与输入宽高互换
+     */
+    public int getOutputWidth(int width, int height) {
+        return rotation == 90 || rotation == 270 ? height : width;
+    }
+
+    public int getOutputHeight(int width, int height) {
+        return rotation == 90 || rotation == 270 ? width : height;
+    }
+
+    public YuvFormat getSourceFormat() {
+        return srcFormat;
+    }
+
+    public YuvFormat getDestinationFormat() {
+        return dstFormat;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public boolean isFlipHorizontal() {
+        return flipHorizontal;
+    }
+
+    public boolean isFlipVertical() {
+        return flipVertical;
+    }
+}
@@ -0,0 +1,17 @@
+package com.devyk.opengl;
+
+/**
+ * <pre>
+ *     desc    : This is YuvUploadMode 纹理上传方式
+ * </pre>
+ */
+public enum YuvUploadMode {
+    /**
+     * glTexSubImage2D 直接读取客户端内存，调用期间驱动同步拷贝
+     */
+    DIRECT,
+    /**
+     * 先写入像素缓冲对象（PBO）环，再由 PBO 更新纹理，拷贝到显存与上一帧的绘制并行
+     */
+    PIXEL_BUFFER
+}
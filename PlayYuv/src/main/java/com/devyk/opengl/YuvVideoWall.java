@@ -0,0 +1,137 @@
+package com.devyk.opengl;
+
+import android.content.Context;
+import android.opengl.GLSurfaceView;
+import android.view.ViewGroup;
+
+/**
+ * <pre>
+ *     desc    : This is YuvVideoWall 多路 YUV 拼接播放管理类
+ *
+ *     与 {@link PlayManager} 用法一致，但只创建一个 GLSurfaceView（一个 EGL 上下文、一个渲染线程），
+ *     N 路画面按 columns x rows 宫格画在同一个 Surface 上，适合多路监控。
+ * </pre>
+ */
+public class YuvVideoWall {
+    private int columns;
+    private int rows;
+    private int streamCount;
+    private ViewGroup bindPlayControl;
+    private Context context;
+    private GLSurfaceView wallView;
+    private YuvWallRenderer mRenderer;
+
+    private YuvVideoWall() {
+    }
+
+    public static final class Builder {
+        private int columns = 2;
+        private int rows = 2;
+        private int streamCount = -1;
+        private ViewGroup bindPlayControl;
+
+        public Builder withColumns(int columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        public Builder withRows(int rows) {
+            this.rows = rows;
+            return this;
+        }
+
+        /**
+         * 画面路数，默认 columns * rows
+         */
+        public Builder withStreamCount(int streamCount) {
+            this.streamCount = streamCount;
+            return this;
+        }
+
+        public Builder bindPlayControl(ViewGroup bindPlayControl) {
+            this.bindPlayControl = bindPlayControl;
+            return this;
+        }
+
+        public YuvVideoWall build(Context context) {
+            YuvVideoWall wall = new YuvVideoWall();
+            wall.columns = this.columns;
+            wall.rows = this.rows;
+            wall.streamCount = this.streamCount == -1 ? columns * rows : this.streamCount;
+            wall.bindPlayControl = this.bindPlayControl;
+            wall.context = context.getApplicationContext();
+            return wall;
+        }
+    }
+
+    public void initPlayControl() {
+        checkControl();
+        if (wallView != null) return;
+        mRenderer = new YuvWallRenderer(context, columns, rows, streamCount);
+        wallView = new GLSurfaceView(context);
+        wallView.setEGLContextClientVersion(3); // 设置OpenGL版本号
+        wallView.setRenderer(mRenderer);
+        wallView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY); // 任意一路有新帧时才绘制
+        final GLSurfaceView view = wallView;
+        mRenderer.setRenderRequest(new Runnable() {
+            @Override
+            public void run() {
+                view.requestRender();
+            }
+        });
+        bindPlayControl.removeAllViews();
+        bindPlayControl.addView(wallView);
+    }
+
+    private void checkControl() {
+        if (bindPlayControl == null || context == null)
+            throw new NullPointerException("Context or bindPlayControl is null ？");
+    }
+
+    /**
+     * 第 index 路画面，可以直接作为 {@link YuvFilePlayer} 的 {@link YuvFrameSink}。
+     * 每一路各自只能有一个生产者线程
+     */
+    public YuvWallRenderer.Stream getStream(int index) {
+        if (mRenderer == null)
+            throw new IllegalStateException("initPlayControl first");
+        return mRenderer.getStream(index);
+    }
+
+    /**
+     * 第 index 路播放一帧 I420，数据在调用内拷贝，返回后可以复用
+     */
+    public void setYUVI420(int index, byte[] i420, int width, int height) {
+        getStream(index).publish(i420, width, height, YuvFormat.I420);
+    }
+
+    /**
+     * 第 index 路播放一帧任意 {@link YuvFormat}，数据在调用内拷贝，返回后可以复用
+     */
+    public void setYUV(int index, byte[] yuv, int width, int height, YuvFormat format) {
+        getStream(index).publish(yuv, width, height, format);
+    }
+
+    public int getStreamCount() {
+        return streamCount;
+    }
+
+    /**
+     * 删除播放控件
+     */
+    public void removePlayControl() {
+        checkControl();
+        bindPlayControl.removeView(wallView);
+    }
+
+    /**
+     * 销毁
+     */
+    public void onDestory() {
+        try {
+            removePlayControl();
+        } catch (Error error) {
+            error.printStackTrace();
+        }
+    }
+}
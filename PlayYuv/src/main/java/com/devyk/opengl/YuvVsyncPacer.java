@@ -0,0 +1,107 @@
+package com.devyk.opengl;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <pre>
+ *     desc    : This is YuvVsyncPacer 跟随屏幕 vsync 消费 {@link YuvPresentationQueue}
+ *
+ *     在自己的 HandlerThread 上注册 Choreographer 回调，每次 vsync 取出到期的帧交给 {@link Presenter}
+ *     （换进渲染器的三缓冲并 requestRender）。队列为空时不再注册回调，空闲时不占用 CPU。
+ *     排期逻辑都在 {@link YuvPresentationQueue} 中，这里只负责线程和 vsync。
+ * </pre>
+ */
+public class YuvVsyncPacer implements Choreographer.FrameCallback {
+    private static final String TAG = "YuvVsyncPacer";
+
+    public interface Presenter {
+        /**
+         * 在 vsync 线程回调，frame 此后归 Presenter 所有
+         *
+         * @return 换下来的空闲帧，归还给队列复用
+         */
+        YuvFrameBuffer present(YuvFrameBuffer frame);
+    }
+
+    private final YuvPresentationQueue queue;
+    private final Presenter presenter;
+    private final long intervalNanos;
+    private final HandlerThread thread;
+    private final Handler handler;
+    /**
+     * 已经（或即将）注册了 vsync 回调
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean released;
+    /**
+     * 只在 vsync 线程访问
+     */
+    private Choreographer choreographer;
+
+    private final Runnable postCallback = new Runnable() {
+        @Override
+        public void run() {
+            if (released) return;
+            if (choreographer == null) choreographer = Choreographer.getInstance();
+            choreographer.postFrameCallback(YuvVsyncPacer.this);
+        }
+    };
+
+    /**
+     * @param refreshRate 屏幕刷新率（Display.getRefreshRate()）
+     */
+    public YuvVsyncPacer(YuvPresentationQueue queue, float refreshRate, Presenter presenter) {
+        if (refreshRate <= 0)
+            throw new IllegalArgumentException("refreshRate must be > 0 : " + refreshRate);
+        this.queue = queue;
+        this.presenter = presenter;
+        this.intervalNanos = (long) (1_000_000_000L / refreshRate);
+        thread = new HandlerThread(TAG);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * 提交新帧后调用，在下一次 vsync 检查队列；可以在任意线程调用
+     */
+    public void schedule() {
+        if (!released && scheduled.compareAndSet(false, true)) {
+            handler.post(postCallback);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (released) return;
+        // 这次 vsync 上绘制的画面在下一次 vsync 显示
+        YuvFrameBuffer frame = queue.take(frameTimeNanos + intervalNanos, intervalNanos);
+        if (frame != null) {
+            queue.recycle(presenter.present(frame));
+        }
+        if (!queue.isEmpty()) {
+            choreographer.postFrameCallback(this);
+            return;
+        }
+        scheduled.set(false);
+        // 清标志与生产者提交之间可能插入了新帧，再检查一次
+        if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * 停止 vsync 回调并结束线程
+     */
+    public void release() {
+        released = true;
+        thread.quitSafely();
+    }
+}
@@ -0,0 +1,171 @@
+package com.devyk.opengl;
+
+import android.content.Context;
+import android.opengl.GLES30;
+import android.opengl.GLSurfaceView;
+
+import java.nio.ByteBuffer;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * <pre>
+ *     desc    : This is YuvWallRenderer 多路 YUV 画面拼接到同一个 Surface
+ *
+ *     所有画面共用一个 GL 线程、一个上下文和一份着色器程序（{@link YuvFrameDrawer}），
+ *     每一路只有自己的三缓冲和平面纹理。每次绘制清屏一次，再按宫格依次设置视口绘制各路，
+ *     没有新帧的那一路直接重画上一次上传的纹理内容。
+ * </pre>
+ */
+public class YuvWallRenderer implements GLSurfaceView.Renderer {
+    private final Context context;
+    private final int columns;
+    private final int rows;
+    private final YuvFrameDrawer drawer = new YuvFrameDrawer();
+    private final Stream[] streams;
+    private int surfaceWidth;
+    /**
+     * 任意一路发布新帧后调用，一般是 GLSurfaceView::requestRender
+     */
+    private volatile Runnable renderRequest;
+    private int surfaceHeight;
+
+    /**
+     * @param streamCount 画面路数，不能超过 columns * rows
+     */
+    public YuvWallRenderer(Context context, int columns, int rows, int streamCount) {
+        if (columns <= 0 || rows <= 0)
+            throw new IllegalArgumentException("columns or rows is invalid ? " + columns + "x" + rows);
+        if (streamCount <= 0 || streamCount > columns * rows)
+            throw new IllegalArgumentException("streamCount must be in 1.." + columns * rows + " : " + streamCount);
+        this.context = context;
+        this.columns = columns;
+        this.rows = rows;
+        this.streams = new Stream[streamCount];
+        for (int i = 0; i < streamCount; i++) {
+            streams[i] = new Stream();
+        }
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        drawer.init(context.getResources(), YuvProgramCache.getInstance(context));
+        // 新的上下文里旧纹理已失效，纹理在各路第一帧到来时重新分配
+        for (Stream stream : streams) {
+            stream.textures.release(false);
+            stream.uploaded = false;
+        }
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        surfaceWidth = width;
+        surfaceHeight = height;
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        GLES30.glViewport(0, 0, surfaceWidth, surfaceHeight);
+        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        int tileWidth = surfaceWidth / columns;
+        int tileHeight = surfaceHeight / rows;
+        for (int i = 0; i < streams.length; i++) {
+            Stream stream = streams[i];
+            boolean fresh = stream.mailbox.consume();
+            YuvFrameBuffer frame = stream.mailbox.front();
+            if (!frame.hasFrame()) continue;
+            int column = i % columns;
+            int row = i / columns;
+            // 宫格从左上角开始，GL 视口原点在左下角
+            GLES30.glViewport(column * tileWidth, surfaceHeight - (row + 1) * tileHeight, tileWidth, tileHeight);
+            stream.draw(frame, fresh);
+        }
+    }
+
+    /**
+     * 设置有新帧时的回调，RENDERMODE_WHEN_DIRTY 下传入 GLSurfaceView::requestRender
+     */
+    public void setRenderRequest(Runnable renderRequest) {
+        this.renderRequest = renderRequest;
+    }
+
+    private void requestRender() {
+        Runnable request = renderRequest;
+        if (request != null) request.run();
+    }
+
+    /**
+     * 第 index 路画面
+     */
+    public Stream getStream(int index) {
+        return streams[index];
+    }
+
+    public int getStreamCount() {
+        return streams.length;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * 一路画面：自己的三缓冲、纹理和显示变换，生产者线程之间互不影响
+     */
+    public final class Stream implements YuvFrameSink {
+        private final YuvFrameMailbox mailbox = new YuvFrameMailbox();
+        private final YuvPlaneTextures textures = new YuvPlaneTextures(3);
+        private volatile float[] texMatrix = YuvTexCoordTransform.IDENTITY;
+        /**
+         * front 中的帧是否已经上传过，没有新帧时只重画不重新上传
+         */
+        private boolean uploaded;
+
+        /**
+         * 拷贝一帧，返回后 yuv 可以复用；只能在同一个生产者线程调用
+         */
+        public void publish(byte[] yuv, int width, int height, YuvFormat format) {
+            mailbox.publish(yuv, width, height, format);
+            requestRender();
+        }
+
+        /**
+         * 拷贝一帧，从 position 开始读取且不改变 position
+         */
+        public void publish(ByteBuffer yuv, int width, int height, YuvFormat format) {
+            mailbox.publish(yuv, width, height, format);
+            requestRender();
+        }
+
+        /**
+         * 内容不会再改变的一帧（例如 {@link YuvFileSource} 的切片），direct buffer 不拷贝
+         */
+        @Override
+        public void onFrame(ByteBuffer yuv, int width, int height, YuvFormat format) {
+            mailbox.publishReference(yuv, width, height, format);
+            requestRender();
+        }
+
+        /**
+         * @param rotation 顺时针旋转角度 0 / 90 / 180 / 270
+         */
+        public void setDisplayTransform(int rotation, boolean flipHorizontal, boolean flipVertical) {
+            texMatrix = YuvTexCoordTransform.matrix(rotation, flipHorizontal, flipVertical);
+            requestRender();
+        }
+
+        public long getDroppedFrameCount() {
+            return mailbox.getDroppedCount();
+        }
+
+        private void draw(YuvFrameBuffer frame, boolean fresh) {
+            drawer.draw(frame, textures, null, texMatrix, fresh || !uploaded);
+            uploaded = true;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.devyk.opengl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 把 {@link YuvDirtyRegionTracker} 的结果回放到模拟纹理（每个平面一块紧密排列的 byte[]）：
+ * 整帧上传拷贝所有行，否则只拷贝脏段，每次回放后纹理必须与当前帧一致
+ */
+public class YuvDirtyRegionTrackerTest {
+    /**
+     * 亮度 200 行按 64 行切成 4 个行带，最后一个只有 8 行；色度 100 行按 32 行切
+     */
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 200;
+
+    private final YuvFrameBuffer frame = new YuvFrameBuffer();
+    private final byte[][] texture = new byte[3][];
+
+    @Test
+    public void firstFrameIsFullUpload() {
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        byte[] yuv = frame(WIDTH, HEIGHT);
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        assertTrue(upload(tracker));
+        assertEquals(1, tracker.getFullUploadCount());
+
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        assertFalse(upload(tracker));
+        assertRuns(tracker, 0);
+        assertRuns(tracker, 1);
+        assertRuns(tracker, 2);
+        assertEquals(0f, tracker.getDirtyFraction(), 0f);
+        assertEquals(1, tracker.getUnchangedCount());
+        assertEquals(0, tracker.getPartialUploadCount());
+    }
+
+    @Test
+    public void changedRowUploadsItsBand() {
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        byte[] yuv = frame(WIDTH, HEIGHT);
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+
+        yuv[70 * WIDTH + 5]++;
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        assertFalse(upload(tracker));
+        assertRuns(tracker, 0, 64, 64);
+        assertRuns(tracker, 1);
+        assertRuns(tracker, 2);
+        assertEquals(64f * WIDTH / (WIDTH * HEIGHT * 3 / 2), tracker.getDirtyFraction(), 1e-6f);
+        assertEquals(1, tracker.getPartialUploadCount());
+
+        // V 平面第 40 行与亮度第 64 ~ 127 行同属一个行带；最后一个行带不满
+        yuv[WIDTH * HEIGHT * 5 / 4 + 40 * (WIDTH / 2)]++;
+        yuv[199 * WIDTH]++;
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        assertFalse(upload(tracker));
+        assertRuns(tracker, 0, 192, 8);
+        assertRuns(tracker, 1);
+        assertRuns(tracker, 2, 32, 32);
+    }
+
+    @Test
+    public void adjacentBandsMerge() {
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        byte[] yuv = frame(WIDTH, HEIGHT);
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+
+        yuv[10 * WIDTH]++;
+        yuv[70 * WIDTH]++;
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+        assertRuns(tracker, 0, 0, 128);
+
+        yuv[10 * WIDTH]++;
+        yuv[150 * WIDTH]++;
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+        assertRuns(tracker, 0, 0, 64, 128, 64);
+    }
+
+    @Test
+    public void largeChangeFallsBackToFullUpload() {
+        byte[] yuv = frame(WIDTH, HEIGHT);
+        // 改动整个 Y 平面，占整帧的 2/3
+        byte[] changed = yuv.clone();
+        for (int i = 0; i < HEIGHT; i++) {
+            changed[i * WIDTH]++;
+        }
+
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+        frame.put(changed, WIDTH, HEIGHT, YuvFormat.I420);
+        assertTrue(upload(tracker));
+        assertEquals(2f / 3f, tracker.getDirtyFraction(), 1e-6f);
+
+        tracker = new YuvDirtyRegionTracker.Builder().withFullUploadThreshold(1f).build();
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+        frame.put(changed, WIDTH, HEIGHT, YuvFormat.I420);
+        assertFalse(upload(tracker));
+        assertRuns(tracker, 0, 0, HEIGHT);
+
+        // 阈值为 0 时任何变化都整帧上传
+        tracker = new YuvDirtyRegionTracker.Builder().withFullUploadThreshold(0f).build();
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+        yuv[0]++;
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        assertTrue(upload(tracker));
+    }
+
+    @Test
+    public void sizeOrFormatChangeForcesFullUpload() {
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        byte[] yuv = frame(WIDTH, HEIGHT);
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.I420);
+        upload(tracker);
+
+        // 字节完全相同，但格式变了
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.NV21);
+        assertTrue(upload(tracker));
+        frame.put(yuv, WIDTH, HEIGHT, YuvFormat.NV21);
+        assertFalse(upload(tracker));
+
+        frame.put(yuv, WIDTH / 2, HEIGHT / 2, YuvFormat.NV21);
+        assertTrue(upload(tracker));
+        assertEquals(3, tracker.getFullUploadCount());
+
+        tracker.invalidate();
+        frame.put(yuv, WIDTH / 2, HEIGHT / 2, YuvFormat.NV21);
+        assertTrue(upload(tracker));
+    }
+
+    @Test
+    public void paddedRowsCompareOnlyPixels() {
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        int yStride = WIDTH + 16;
+        int uvStride = WIDTH / 2 + 8;
+        Random random = new Random(1);
+        byte[] y = new byte[yStride * HEIGHT];
+        byte[] u = new byte[uvStride * HEIGHT / 2];
+        byte[] v = new byte[uvStride * HEIGHT / 2];
+        random.nextBytes(y);
+        random.nextBytes(u);
+        random.nextBytes(v);
+        putPlanes(y, u, v, yStride, uvStride);
+        assertEquals(yStride, frame.getRowLength(0));
+        assertTrue(upload(tracker));
+
+        // 只改行填充，画面没有变化
+        y[3 * yStride + WIDTH]++;
+        v[90 * uvStride + WIDTH / 2 + 7]++;
+        putPlanes(y, u, v, yStride, uvStride);
+        assertFalse(upload(tracker));
+        assertEquals(1, tracker.getUnchangedCount());
+
+        y[130 * yStride + WIDTH - 1]++;
+        u[2 * uvStride]++;
+        putPlanes(y, u, v, yStride, uvStride);
+        assertFalse(upload(tracker));
+        assertRuns(tracker, 0, 128, 64);
+        assertRuns(tracker, 1, 0, 32);
+        assertRuns(tracker, 2);
+    }
+
+    @Test
+    public void paddedSemiPlanarRows() {
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().withBandHeight(16).build();
+        int stride = WIDTH + 32;
+        byte[] y = new byte[stride * HEIGHT];
+        byte[] uv = new byte[stride * HEIGHT / 2];
+        new Random(2).nextBytes(y);
+        new Random(3).nextBytes(uv);
+        frame.putSemiPlanar(ByteBuffer.wrap(y), stride, ByteBuffer.wrap(uv), stride, WIDTH, HEIGHT, YuvFormat.NV12);
+        assertTrue(upload(tracker));
+
+        uv[20 * stride + WIDTH + 1]++;
+        uv[21 * stride + WIDTH - 1]++;
+        frame.putSemiPlanar(ByteBuffer.wrap(y), stride, ByteBuffer.wrap(uv), stride, WIDTH, HEIGHT, YuvFormat.NV12);
+        assertFalse(upload(tracker));
+        assertRuns(tracker, 0);
+        assertRuns(tracker, 1, 16, 8);
+    }
+
+    @Test
+    public void randomEditsKeepTextureInSync() {
+        Random random = new Random(4);
+        for (YuvFormat format : YuvFormat.values()) {
+            YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().withBandHeight(16).build();
+            int width = 34;
+            int height = 50;
+            byte[] yuv = frame(width, height);
+            for (int i = 0; i < 200; i++) {
+                int edits = random.nextInt(4);
+                for (int e = 0; e < edits; e++) {
+                    yuv[random.nextInt(yuv.length)] = (byte) random.nextInt();
+                }
+                frame.put(yuv, width, height, format);
+                upload(tracker);
+            }
+            assertTrue(tracker.getPartialUploadCount() > 0);
+            assertTrue(tracker.getUnchangedCount() > 0);
+        }
+    }
+
+    private void putPlanes(byte[] y, byte[] u, byte[] v, int yStride, int uvStride) {
+        frame.putPlanes(ByteBuffer.wrap(y), yStride, ByteBuffer.wrap(u), ByteBuffer.wrap(v), uvStride, 1,
+                WIDTH, HEIGHT);
+    }
+
+    /**
+     * update 并把结果回放到模拟纹理，检查纹理与帧一致
+     *
+     * @return 是否整帧上传
+     */
+    private boolean upload(YuvDirtyRegionTracker tracker) {
+        boolean full = tracker.update(frame);
+        for (int i = 0; i < frame.getPlaneCount(); i++) {
+            int rowBytes = rowBytes(i);
+            int rows = rows(i);
+            if (full) {
+                texture[i] = new byte[rowBytes * rows];
+                copyRows(i, 0, rows);
+            } else {
+                assertEquals(rowBytes * rows, texture[i].length);
+                for (int run = 0; run < tracker.getRunCount(i); run++) {
+                    copyRows(i, tracker.getRunTop(i, run), tracker.getRunRows(i, run));
+                }
+            }
+            byte[] expected = new byte[rowBytes * rows];
+            readRows(i, 0, rows, expected);
+            assertArrayEquals("plane " + i, expected, texture[i]);
+        }
+        return full;
+    }
+
+    private void copyRows(int plane, int top, int rows) {
+        readRows(plane, top, rows, texture[plane]);
+    }
+
+    /**
+     * 从帧中读出 [top, top + rows) 行（去掉行填充）写到 dst 的对应位置
+     */
+    private void readRows(int plane, int top, int rows, byte[] dst) {
+        ByteBuffer view = frame.plane(plane);
+        int base = view.position();
+        int rowBytes = rowBytes(plane);
+        int stride = frame.getRowLength(plane) * bytesPerPixel(plane);
+        for (int r = top; r < top + rows; r++) {
+            for (int x = 0; x < rowBytes; x++) {
+                dst[r * rowBytes + x] = view.get(base + r * stride + x);
+            }
+        }
+    }
+
+    private int bytesPerPixel(int plane) {
+        return frame.getFormat().semiPlanar && plane == 1 ? 2 : 1;
+    }
+
+    private int rowBytes(int plane) {
+        return (plane == 0 ? frame.getWidth() : frame.getWidth() / 2) * bytesPerPixel(plane);
+    }
+
+    private int rows(int plane) {
+        return plane == 0 ? frame.getHeight() : frame.getHeight() / 2;
+    }
+
+    /**
+     * 平面 plane 的脏段依次为 (top, rows) 对
+     */
+    private static void assertRuns(YuvDirtyRegionTracker tracker, int plane, int... runs) {
+        int[] actual = new int[tracker.getRunCount(plane) * 2];
+        for (int i = 0; i < tracker.getRunCount(plane); i++) {
+            actual[2 * i] = tracker.getRunTop(plane, i);
+            actual[2 * i + 1] = tracker.getRunRows(plane, i);
+        }
+        assertEquals("plane " + plane, Arrays.toString(runs), Arrays.toString(actual));
+    }
+
+    private static byte[] frame(int width, int height) {
+        byte[] frame = new byte[YuvFormat.frameSize(width, height)];
+        new Random(width * 31 + height).nextBytes(frame);
+        return frame;
+    }
+}
@@ -0,0 +1,53 @@
+package com.devyk.opengl;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class YuvLatencyHistogramTest {
+
+    /**
+     * 每个值落在自己桶的范围内，桶宽不超过下界的 1/32
+     */
+    @Test
+    public void bucketBoundsAreWithinThreePercent() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (24 + random.nextInt(40));
+            int index = YuvLatencyHistogram.index(value);
+            long upper = YuvLatencyHistogram.upperBound(index);
+            long lower = index == 0 ? 0 : YuvLatencyHistogram.upperBound(index - 1) + 1;
+            assertTrue(value + " in [" + lower + ", " + upper + "]", lower <= value && value <= upper);
+            assertTrue(value + " bucket width " + (upper - lower + 1), (upper - lower + 1) * 32 <= Math.max(lower, 32));
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int index = 1; index < YuvLatencyHistogram.index(1L << 40); index++) {
+            long lower = YuvLatencyHistogram.upperBound(index - 1) + 1;
+            assertEquals(index, YuvLatencyHistogram.index(lower));
+            assertEquals(index, YuvLatencyHistogram.index(YuvLatencyHistogram.upperBound(index)));
+        }
+    }
+
+    @Test
+    public void percentileIsWithinThreePercent() {
+        YuvLatencyHistogram histogram = new YuvLatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        long p50 = histogram.percentile(50);
+        assertTrue("p50 " + p50, p50 >= 500_000 && p50 <= 500_000 * 1.03);
+        long p99 = histogram.percentile(99);
+        assertTrue("p99 " + p99, p99 >= 990_000 && p99 <= 990_000 * 1.03);
+        assertEquals(1_000_000, histogram.percentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.percentile(50));
+    }
+}
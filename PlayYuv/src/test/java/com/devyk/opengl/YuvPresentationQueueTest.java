@@ -0,0 +1,213 @@
+package com.devyk.opengl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用手动推进的时钟和给定的 vsync 时间驱动 {@link YuvPresentationQueue}，每帧 Y 平面第一个字节是帧序号
+ */
+public class YuvPresentationQueueTest {
+    private static final long MS = 1_000_000L;
+    private static final long INTERVAL = 16 * MS;
+    private static final long START = 1_000 * MS;
+
+    private static final class ManualClock implements YuvClock {
+        long now = START;
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void firstFrameIsAnchoredToClock() {
+        YuvPresentationQueue queue = builder().build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 90_000 * MS);
+        assertEquals(START, queue.nextPresentTime());
+
+        // 之后的帧只使用 PTS 差值
+        clock.now += 5 * MS;
+        queue.submit(frame(2), 4, 2, YuvFormat.I420, 90_033 * MS);
+        assertEquals(1, id(queue.take(START, INTERVAL)));
+        assertEquals(START + 33 * MS, queue.nextPresentTime());
+    }
+
+    @Test
+    public void latencyDelaysAnchor() {
+        YuvPresentationQueue queue = builder().withLatencyNanos(50 * MS).build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        assertEquals(START + 50 * MS, queue.nextPresentTime());
+        assertNull(queue.take(START + 40 * MS, INTERVAL));
+    }
+
+    @Test
+    public void nearestVsyncPresentsUpToHalfIntervalEarly() {
+        YuvPresentationQueue queue = builder().withRenderTiming(YuvRenderTiming.NEAREST_VSYNC).build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        assertNull(queue.take(START - 9 * MS, INTERVAL));
+        assertEquals(1, id(queue.take(START - 7 * MS, INTERVAL)));
+        assertEquals(1, queue.getPresentedCount());
+    }
+
+    @Test
+    public void notBeforePtsNeverPresentsEarly() {
+        YuvPresentationQueue queue = builder().withRenderTiming(YuvRenderTiming.NOT_BEFORE_PTS).build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        assertNull(queue.take(START - 1, INTERVAL));
+        assertEquals(1, id(queue.take(START, INTERVAL)));
+    }
+
+    @Test
+    public void immediateIgnoresPresentTime() {
+        YuvPresentationQueue queue = builder().withRenderTiming(YuvRenderTiming.IMMEDIATE).build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        queue.submit(frame(2), 4, 2, YuvFormat.I420, 1_000 * MS);
+        assertEquals(1, id(queue.take(0, INTERVAL)));
+        assertEquals(2, id(queue.take(0, INTERVAL)));
+        assertNull(queue.take(0, INTERVAL));
+        assertEquals(0, queue.getLateDroppedCount());
+    }
+
+    @Test
+    public void dropShowsNewestDueFrame() {
+        YuvPresentationQueue queue = builder()
+                .withRenderTiming(YuvRenderTiming.NOT_BEFORE_PTS)
+                .withLateFramePolicy(YuvLateFramePolicy.DROP)
+                .build();
+        submitThree(queue);
+        assertEquals(3, id(queue.take(START + 25 * MS, INTERVAL)));
+        assertTrue(queue.isEmpty());
+        assertEquals(2, queue.getLateDroppedCount());
+        assertEquals(1, queue.getPresentedCount());
+    }
+
+    @Test
+    public void displayShowsLateFramesInOrder() {
+        YuvPresentationQueue queue = builder()
+                .withRenderTiming(YuvRenderTiming.NOT_BEFORE_PTS)
+                .withLateFramePolicy(YuvLateFramePolicy.DISPLAY)
+                .build();
+        submitThree(queue);
+        long vsync = START + 25 * MS;
+        assertEquals(1, id(queue.take(vsync, INTERVAL)));
+        assertEquals(2, id(queue.take(vsync + INTERVAL, INTERVAL)));
+        assertEquals(3, id(queue.take(vsync + 2 * INTERVAL, INTERVAL)));
+        assertEquals(0, queue.getLateDroppedCount());
+        assertEquals(3, queue.getPresentedCount());
+    }
+
+    @Test
+    public void outOfOrderFramesAreSortedByPts() {
+        YuvPresentationQueue queue = builder().withRenderTiming(YuvRenderTiming.IMMEDIATE).build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        queue.submit(frame(3), 4, 2, YuvFormat.I420, 66 * MS);
+        queue.submit(frame(2), 4, 2, YuvFormat.I420, 33 * MS);
+        assertEquals(1, id(queue.take(0, INTERVAL)));
+        assertEquals(2, id(queue.take(0, INTERVAL)));
+        assertEquals(3, id(queue.take(0, INTERVAL)));
+    }
+
+    @Test
+    public void fullQueueEvictsOldestFrame() {
+        YuvPresentationQueue queue = builder()
+                .withCapacity(2)
+                .withRenderTiming(YuvRenderTiming.IMMEDIATE)
+                .build();
+        assertFalse(queue.submit(frame(1), 4, 2, YuvFormat.I420, 0));
+        assertFalse(queue.submit(frame(2), 4, 2, YuvFormat.I420, 33 * MS));
+        assertTrue(queue.submit(frame(3), 4, 2, YuvFormat.I420, 66 * MS));
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getOverflowDroppedCount());
+        assertEquals(3, queue.getSubmittedCount());
+        assertEquals(2, id(queue.take(0, INTERVAL)));
+        assertEquals(3, id(queue.take(0, INTERVAL)));
+    }
+
+    @Test
+    public void recycledFramesKeepQueueRunning() {
+        YuvPresentationQueue queue = builder()
+                .withCapacity(2)
+                .withRenderTiming(YuvRenderTiming.IMMEDIATE)
+                .build();
+        YuvFrameBuffer onScreen = null;
+        for (int i = 0; i < 20; i++) {
+            queue.submit(frame(i), 4, 2, YuvFormat.I420, i * 33 * MS);
+            YuvFrameBuffer next = queue.take(0, INTERVAL);
+            assertEquals(i, id(next));
+            // 与渲染线程交换：换下来的帧还给队列
+            if (onScreen != null) queue.recycle(onScreen);
+            onScreen = next;
+        }
+        assertEquals(0, queue.getOverflowDroppedCount());
+    }
+
+    @Test
+    public void droppedFramesReachMetrics() {
+        YuvPipelineMetrics metrics = new YuvPipelineMetrics();
+        YuvPresentationQueue queue = builder()
+                .withCapacity(2)
+                .withRenderTiming(YuvRenderTiming.NOT_BEFORE_PTS)
+                .withLateFramePolicy(YuvLateFramePolicy.DROP)
+                .withMetrics(metrics)
+                .build();
+        // 第三帧挤掉第一帧，第二帧在同一次 vsync 迟到
+        submitThree(queue);
+        assertEquals(3, id(queue.take(START + 25 * MS, INTERVAL)));
+
+        YuvMetricsSnapshot snapshot = new YuvMetricsSnapshot();
+        metrics.snapshot(snapshot);
+        assertEquals(2, snapshot.droppedFrames);
+        // 上屏的第三帧由渲染器的 presentFrame 计入，这里只有两个丢弃的帧
+        assertEquals(2, snapshot.submittedFrames);
+        assertEquals(1, queue.getOverflowDroppedCount());
+        assertEquals(1, queue.getLateDroppedCount());
+    }
+
+    @Test
+    public void flushReanchorsTimeline() {
+        YuvPresentationQueue queue = builder().build();
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        queue.submit(frame(2), 4, 2, YuvFormat.I420, 33 * MS);
+        queue.flush();
+        assertTrue(queue.isEmpty());
+        assertEquals(Long.MAX_VALUE, queue.nextPresentTime());
+
+        // seek 之后的 PTS 重新对齐到当前时间，而不是沿用旧的偏移
+        clock.now = START + 2_000 * MS;
+        queue.submit(frame(3), 4, 2, YuvFormat.I420, 500 * MS);
+        assertEquals(clock.now, queue.nextPresentTime());
+        assertEquals(3, id(queue.take(clock.now, INTERVAL)));
+    }
+
+    private YuvPresentationQueue.Builder builder() {
+        return new YuvPresentationQueue.Builder().withClock(clock);
+    }
+
+    /**
+     * 显示时间 START、START + 10ms、START + 20ms 的三帧
+     */
+    private static void submitThree(YuvPresentationQueue queue) {
+        queue.submit(frame(1), 4, 2, YuvFormat.I420, 0);
+        queue.submit(frame(2), 4, 2, YuvFormat.I420, 10 * MS);
+        queue.submit(frame(3), 4, 2, YuvFormat.I420, 20 * MS);
+    }
+
+    /**
+     * 4x2 的 I420，Y 平面第一个字节是 id
+     */
+    private static byte[] frame(int id) {
+        byte[] frame = new byte[YuvFormat.frameSize(4, 2)];
+        frame[0] = (byte) id;
+        return frame;
+    }
+
+    private static int id(YuvFrameBuffer frame) {
+        assertNotNull(frame);
+        frame.rewind();
+        return frame.plane(0).get(frame.plane(0).position());
+    }
+}
@@ -0,0 +1,170 @@
+package com.devyk.opengl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link YuvRgbConverter} 的定点结果与 fragment.fsh 的浮点计算（归一化到 [0, 1]，饱和后按 255 量化）
+ * 每个通道相差不超过 1
+ */
+public class YuvRgbConverterTest {
+
+    /**
+     * 512x512 的帧中每个 2x2 块的色度各不相同（U 取列、V 取行），64 帧把 4 个亮度值轮换一遍，
+     * 覆盖全部 256 x 256 x 256 种组合
+     */
+    @Test
+    public void everyYuvIsWithinOneOfShader() {
+        int width = 512;
+        int height = 512;
+        YuvRgbConverter converter = new YuvRgbConverter(YuvFormat.I420);
+        byte[] y = new byte[width * height];
+        byte[] u = new byte[width * height / 4];
+        byte[] v = new byte[width * height / 4];
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < width / 2; col++) {
+                u[row * width / 2 + col] = (byte) col;
+                v[row * width / 2 + col] = (byte) row;
+            }
+        }
+        int[] argb = new int[width * height];
+        for (int pass = 0; pass < 64; pass++) {
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    y[row * width + col] = (byte) (pass * 4 + (row & 1) * 2 + (col & 1));
+                }
+            }
+            converter.convert(frame(YuvFormat.I420, width, height, y, u, v), width, height, argb);
+            assertWithinOne(width, height, y, u, v, argb);
+        }
+    }
+
+    @Test
+    public void everyFormatMatchesShader() {
+        int width = 34;
+        int height = 18;
+        Random random = new Random(1);
+        byte[] y = new byte[width * height];
+        byte[] u = new byte[width * height / 4];
+        byte[] v = new byte[width * height / 4];
+        random.nextBytes(y);
+        random.nextBytes(u);
+        random.nextBytes(v);
+        for (YuvFormat format : YuvFormat.values()) {
+            int[] argb = new int[width * height];
+            new YuvRgbConverter(format).convert(frame(format, width, height, y, u, v), width, height, argb);
+            assertWithinOne(width, height, y, u, v, argb);
+        }
+    }
+
+    /**
+     * 奇数宽高的最后一列 / 一行沿用前一个色度
+     */
+    @Test
+    public void oddSizeReusesLastChroma() {
+        int width = 7;
+        int height = 5;
+        byte[] src = new byte[YuvFormat.frameSize(width, height)];
+        new Random(2).nextBytes(src);
+        int[] argb = new YuvRgbConverter(YuvFormat.NV21).convert(src, width, height);
+        int ySize = width * height;
+        int chromaWidth = width / 2;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int c = Math.min(row / 2, height / 2 - 1) * chromaWidth * 2 + Math.min(col / 2, chromaWidth - 1) * 2;
+                int expected = shader(src[row * width + col] & 0xFF, src[ySize + c + 1] & 0xFF, src[ySize + c] & 0xFF);
+                assertWithinOne("(" + col + ", " + row + ")", expected, argb[row * width + col]);
+            }
+        }
+    }
+
+    @Test
+    public void bufferAndParallelOutputMatchArray() {
+        int width = 1280;
+        int height = 720;
+        byte[] src = new byte[YuvFormat.frameSize(width, height)];
+        new Random(3).nextBytes(src);
+        YuvRgbConverter converter = new YuvRgbConverter(YuvFormat.NV12);
+        int[] expected = new int[width * height];
+        converter.convert(src, width, height, expected);
+
+        IntBuffer direct = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        converter.convert(src, width, height, direct);
+        int[] actual = new int[width * height];
+        direct.get(actual);
+        assertArrayEquals(expected, actual);
+
+        YuvParallelTransformer parallel = new YuvParallelTransformer(null, 3, 0);
+        try {
+            actual = new int[width * height];
+            parallel.apply(converter, src, width, height, actual);
+            assertArrayEquals(expected, actual);
+        } finally {
+            parallel.release();
+        }
+    }
+
+    private static void assertWithinOne(int width, int height, byte[] y, byte[] u, byte[] v, int[] argb) {
+        int chromaWidth = width / 2;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int c = (row / 2) * chromaWidth + col / 2;
+                int yy = y[row * width + col] & 0xFF;
+                int uu = u[c] & 0xFF;
+                int vv = v[c] & 0xFF;
+                assertWithinOne("yuv " + yy + " " + uu + " " + vv, shader(yy, uu, vv), argb[row * width + col]);
+            }
+        }
+    }
+
+    private static void assertWithinOne(String message, int expected, int actual) {
+        assertEquals(message, 0xFF, actual >>> 24);
+        for (int shift = 0; shift < 24; shift += 8) {
+            int e = (expected >> shift) & 0xFF;
+            int a = (actual >> shift) & 0xFF;
+            if (Math.abs(e - a) > 1)
+                fail(message + String.format(" expected %06x but was %06x", expected & 0xFFFFFF, actual & 0xFFFFFF));
+        }
+    }
+
+    /**
+     * fragment.fsh：纹理采样归一化到 [0, 1]，色度减 0.5，输出饱和后按 255 量化
+     */
+    private static int shader(int yValue, int uValue, int vValue) {
+        float y = yValue / 255f;
+        float u = uValue / 255f - 0.5f;
+        float v = vValue / 255f - 0.5f;
+        float r = y + 1.4022f * v;
+        float g = y - 0.3456f * u - 0.7145f * v;
+        float b = y + 1.771f * u;
+        return 0xFF000000 | quantize(r) << 16 | quantize(g) << 8 | quantize(b);
+    }
+
+    private static int quantize(float value) {
+        return Math.round(Math.max(0f, Math.min(1f, value)) * 255f);
+    }
+
+    private static byte[] frame(YuvFormat format, int width, int height, byte[] y, byte[] u, byte[] v) {
+        byte[] frame = new byte[YuvFormat.frameSize(width, height)];
+        System.arraycopy(y, 0, frame, 0, width * height);
+        int uOffset = format.uOffset(width, height);
+        int vOffset = format.vOffset(width, height);
+        int pixelStride = format.chromaPixelStride();
+        int rowStride = format.chromaRowStride(width);
+        int chromaWidth = width / 2;
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < chromaWidth; col++) {
+                int c = row * rowStride + col * pixelStride;
+                frame[uOffset + c] = u[row * chromaWidth + col];
+                frame[vOffset + c] = v[row * chromaWidth + col];
+            }
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,156 @@
+package com.devyk.opengl;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link YuvScaler} 与逐平面的朴素实现比较：整数倍时与 N x N 平均（四舍五入）逐字节一致，
+ * 否则与浮点的像素中心对齐双线性相差不超过 1
+ */
+public class YuvScalerTest {
+
+    @Test
+    public void integerFactorIsExactBoxAverage() {
+        YuvScaler scaler = new YuvScaler();
+        for (YuvFormat format : YuvFormat.values()) {
+            for (int factor : new int[]{1, 2, 3, 4, 6}) {
+                check(scaler, format, 48, 24, 48 / factor, 24 / factor, 0);
+            }
+            check(scaler, format, 1920, 1080, 320, 180, 0);
+        }
+    }
+
+    @Test
+    public void fractionalFactorIsBilinear() {
+        YuvScaler scaler = new YuvScaler();
+        for (YuvFormat format : YuvFormat.values()) {
+            check(scaler, format, 64, 48, 40, 30, 1);
+            check(scaler, format, 34, 18, 20, 10, 1);
+            // 只有一个方向是整数倍时也走双线性
+            check(scaler, format, 64, 48, 32, 30, 1);
+            check(scaler, format, 1280, 720, 854, 480, 1);
+        }
+    }
+
+    /**
+     * 坐标表按尺寸缓存，尺寸来回切换后结果不变
+     */
+    @Test
+    public void cachedAxesFollowSizeChanges() {
+        YuvScaler scaler = new YuvScaler();
+        check(scaler, YuvFormat.NV21, 64, 48, 40, 30, 1);
+        check(scaler, YuvFormat.NV21, 100, 60, 64, 36, 1);
+        check(scaler, YuvFormat.NV21, 64, 48, 40, 30, 1);
+    }
+
+    @Test
+    public void srcOffsetAndReusedOutput() {
+        int srcWidth = 64;
+        int srcHeight = 48;
+        byte[] frame = random(YuvFormat.frameSize(srcWidth, srcHeight), 1);
+        byte[] padded = new byte[frame.length + 7];
+        System.arraycopy(frame, 0, padded, 7, frame.length);
+        YuvScaler scaler = new YuvScaler();
+        byte[] expected = new byte[YuvFormat.frameSize(40, 30)];
+        scaler.scale(frame, 0, srcWidth, srcHeight, YuvFormat.I420, expected, 40, 30);
+        byte[] actual = new byte[expected.length];
+        scaler.scale(padded, 7, srcWidth, srcHeight, YuvFormat.I420, actual, 40, 30);
+        assertArrayEquals(expected, actual);
+
+        byte[] output = scaler.scale(frame, srcWidth, srcHeight, YuvFormat.I420, 40, 30);
+        assertSame(output, scaler.scale(frame, srcWidth, srcHeight, YuvFormat.I420, 20, 16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void upscaleIsRejected() {
+        new YuvScaler().scale(new byte[YuvFormat.frameSize(8, 8)], 8, 8, YuvFormat.I420, 16, 16);
+    }
+
+    private static void check(YuvScaler scaler, YuvFormat format, int srcWidth, int srcHeight,
+                              int dstWidth, int dstHeight, int tolerance) {
+        byte[] src = random(YuvFormat.frameSize(srcWidth, srcHeight), srcWidth * 31 + srcHeight);
+        byte[] dst = new byte[YuvFormat.frameSize(dstWidth, dstHeight)];
+        scaler.scale(src, 0, srcWidth, srcHeight, format, dst, dstWidth, dstHeight);
+
+        byte[][] srcPlanes = planes(format, srcWidth, srcHeight, src);
+        byte[][] dstPlanes = planes(format, dstWidth, dstHeight, dst);
+        String message = format + " " + srcWidth + "x" + srcHeight + " -> " + dstWidth + "x" + dstHeight;
+        for (int i = 0; i < 3; i++) {
+            int sw = i == 0 ? srcWidth : srcWidth / 2;
+            int sh = i == 0 ? srcHeight : srcHeight / 2;
+            int dw = i == 0 ? dstWidth : dstWidth / 2;
+            int dh = i == 0 ? dstHeight : dstHeight / 2;
+            boolean box = sw % dw == 0 && sh % dh == 0 && sw / dw == sh / dh;
+            for (int y = 0; y < dh; y++) {
+                for (int x = 0; x < dw; x++) {
+                    int expected = box
+                            ? boxAverage(srcPlanes[i], sw, sw / dw, x, y)
+                            : bilinear(srcPlanes[i], sw, sh, dw, dh, x, y);
+                    int actual = dstPlanes[i][y * dw + x] & 0xFF;
+                    if (Math.abs(expected - actual) > (box ? 0 : tolerance))
+                        fail(message + " plane " + i + " (" + x + ", " + y + ") expected " + expected
+                                + " but was " + actual);
+                }
+            }
+        }
+    }
+
+    private static int boxAverage(byte[] plane, int width, int factor, int x, int y) {
+        int sum = 0;
+        for (int j = 0; j < factor; j++) {
+            for (int i = 0; i < factor; i++) {
+                sum += plane[(y * factor + j) * width + x * factor + i] & 0xFF;
+            }
+        }
+        int area = factor * factor;
+        return (sum + area / 2) / area;
+    }
+
+    private static int bilinear(byte[] plane, int srcWidth, int srcHeight, int dstWidth, int dstHeight,
+                                int x, int y) {
+        double sx = Math.max(0, (x + 0.5) * srcWidth / dstWidth - 0.5);
+        double sy = Math.max(0, (y + 0.5) * srcHeight / dstHeight - 0.5);
+        int x0 = Math.min((int) sx, srcWidth - 1);
+        int y0 = Math.min((int) sy, srcHeight - 1);
+        int x1 = Math.min(x0 + 1, srcWidth - 1);
+        int y1 = Math.min(y0 + 1, srcHeight - 1);
+        double fx = sx - x0;
+        double fy = sy - y0;
+        double top = (plane[y0 * srcWidth + x0] & 0xFF) * (1 - fx) + (plane[y0 * srcWidth + x1] & 0xFF) * fx;
+        double bottom = (plane[y1 * srcWidth + x0] & 0xFF) * (1 - fx) + (plane[y1 * srcWidth + x1] & 0xFF) * fx;
+        return (int) Math.round(top * (1 - fy) + bottom * fy);
+    }
+
+    /**
+     * 拆成紧密排列的 Y、U、V 三个平面
+     */
+    private static byte[][] planes(YuvFormat format, int width, int height, byte[] frame) {
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        byte[] y = new byte[width * height];
+        byte[] u = new byte[chromaWidth * chromaHeight];
+        byte[] v = new byte[chromaWidth * chromaHeight];
+        System.arraycopy(frame, 0, y, 0, y.length);
+        int uOffset = format.uOffset(width, height);
+        int vOffset = format.vOffset(width, height);
+        int pixelStride = format.chromaPixelStride();
+        int rowStride = format.chromaRowStride(width);
+        for (int row = 0; row < chromaHeight; row++) {
+            for (int col = 0; col < chromaWidth; col++) {
+                int c = row * rowStride + col * pixelStride;
+                u[row * chromaWidth + col] = frame[uOffset + c];
+                v[row * chromaWidth + col] = frame[vOffset + c];
+            }
+        }
+        return new byte[][]{y, u, v};
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
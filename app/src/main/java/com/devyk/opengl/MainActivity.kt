@@ -29,6 +29,10 @@ class MainActivity : AppCompatActivity(), Camera.PreviewCallback {
     private lateinit var mSurfaceHolder: SurfaceHolder
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
+        /**
+         * 预热：尽早在后台编译并缓存着色器程序，与布局加载、打开相机并行，第一帧不再等待编译
+         */
+        YuvGlPrewarmer.prewarm(applicationContext)
         setContentView(R.layout.activity_main)
         initPlay();
         addHolderCallback()
@@ -112,14 +116,12 @@ class MainActivity : AppCompatActivity(), Camera.PreviewCallback {
     }
 
 
-    private lateinit var i420: ByteArray
-
     /**
      * 预览回调
      */
     override fun onPreviewFrame(data: ByteArray, camera: Camera?) {
-        //传入 YUV 数据开始预览
-        mPlayManager?.setYUVI420(VideoUtils.NV21ToI420p(mPreviewWidth, mPreviewHeight, data))
+        //传入 NV21 数据开始预览，由 GPU 直接采样交错色度，不需要转换成 I420
+        mPlayManager?.setNV21(data)
         camera?.addCallbackBuffer(mBuffer)
     }
     /**
@@ -1,370 +1,200 @@
 package com.devyk.opengl;
 
+/**
+ * 各种 NV21 转换、旋转方法都是 {@link YuvTransform} 的薄封装，每个平面只遍历一次。
+ * 名字带 Mi 的版本输出 U/V 顺序互换（I420 -> YV12，NV21 -> NV12）。
+ */
 public class VideoUtils {
+    private static final YuvTransform NV21_TO_I420 = transform(YuvFormat.I420, 0);
+    private static final YuvTransform NV21_TO_YV12 = transform(YuvFormat.YV12, 0);
+    private static final YuvTransform NV21_TO_NV12 = transform(YuvFormat.NV12, 0);
+    private static final YuvTransform NV21_TO_I420_90 = transform(YuvFormat.I420, 90);
+    private static final YuvTransform NV21_TO_YV12_90 = transform(YuvFormat.YV12, 90);
+    private static final YuvTransform NV21_TO_NV21_90 = transform(YuvFormat.NV21, 90);
+    private static final YuvTransform NV21_TO_NV12_90 = transform(YuvFormat.NV12, 90);
+    private static final YuvTransform NV21_TO_I420_180 = transform(YuvFormat.I420, 180);
+    private static final YuvTransform NV21_TO_YV12_180 = transform(YuvFormat.YV12, 180);
+    private static final YuvTransform NV21_TO_NV21_180 = transform(YuvFormat.NV21, 180);
+    private static final YuvTransform NV21_TO_NV12_180 = transform(YuvFormat.NV12, 180);
+    private static final YuvTransform NV21_TO_I420_270 = transform(YuvFormat.I420, 270);
+    private static final YuvTransform NV21_TO_YV12_270 = transform(YuvFormat.YV12, 270);
+    private static final YuvTransform NV21_TO_NV21_270 = transform(YuvFormat.NV21, 270);
+    private static final YuvTransform NV21_TO_NV12_270 = transform(YuvFormat.NV12, 270);
+    private static final YuvRgbConverter NV21_TO_ARGB = new YuvRgbConverter(YuvFormat.NV21);
+    private static final YuvRgbConverter I420_TO_ARGB = new YuvRgbConverter(YuvFormat.I420);
+
     public VideoUtils() {
     }
 
-    public static void NV21ToI420pWithRotate90DegreeLeftwise(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int size2 = size * 5 / 4;
-        int k = 0;
-
-        int i;
-        int j;
-        int bv;
-        for (i = width; i > 0; --i) {
-            bv = 0;
-
-            for (j = 0; j < height; ++j) {
-                dst[k] = src[bv + i - 1];
-                bv += width;
-                ++k;
-            }
-        }
-
-        k = 0;
-
-        for (i = width; i > 0; i -= 2) {
-            bv = 0;
-
-            for (j = 0; j < height / 2; ++j) {
-                dst[size + k] = src[size + bv + i - 1];
-                dst[size2 + k] = src[size + bv + i - 2];
-                bv += width;
-                ++k;
-            }
-        }
+    private static YuvTransform transform(YuvFormat dstFormat, int rotation) {
+        return new YuvTransform.Builder()
+                .withSourceFormat(YuvFormat.NV21)
+                .withDestinationFormat(dstFormat)
+                .withRotation(rotation)
+                .build();
+    }
 
+    /**
+     * 任意 格式 + 旋转 + 镜像 组合的转换
+     *
+     * @param width  源图像宽
+     * @param height 源图像高
+     */
+    public static byte[] transform(YuvTransform transform, int width, int height, byte[] src, byte[] dst) {
+        transform.apply(src, width, height, dst);
+        return dst;
     }
 
-    public static void NV21ToI420pWithRotate90DegreeLeftwiseMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int size2 = size * 5 / 4;
-        int k = 0;
-
-        int i;
-        int j;
-        int bv;
-        for (i = width; i > 0; --i) {
-            bv = 0;
-
-            for (j = 0; j < height; ++j) {
-                dst[k] = src[bv + i - 1];
-                bv += width;
-                ++k;
-            }
-        }
+    /**
+     * 多核分条带执行，1080p / 4K 时使用，输出与串行版本一致
+     */
+    public static byte[] transform(YuvTransform transform, int width, int height, byte[] src, byte[] dst,
+                                   YuvParallelTransformer parallel) {
+        parallel.apply(transform, src, width, height, dst);
+        return dst;
+    }
 
-        k = 0;
+    /**
+     * 同 {@link #transform(YuvTransform, int, int, byte[], byte[])}，耗时记录到 metrics 的 CONVERT 阶段
+     */
+    public static byte[] transform(YuvTransform transform, int width, int height, byte[] src, byte[] dst,
+                                   YuvPipelineMetrics metrics) {
+        long start = YuvPipelineMetrics.now();
+        transform.apply(src, width, height, dst);
+        metrics.record(YuvPipelineMetrics.Stage.CONVERT, start);
+        return dst;
+    }
 
-        for (i = width; i > 0; i -= 2) {
-            bv = 0;
+    /**
+     * 只转换 src 中 crop 区域，输出 crop 大小的一帧（旋转 90/270 度时宽高互换），
+     * 裁剪与转换在同一次遍历中完成，耗时与区域面积成正比
+     *
+     * @param width  源图像宽
+     * @param height 源图像高
+     */
+    public static byte[] transform(YuvTransform transform, int width, int height, byte[] src, YuvCropRect crop,
+                                   byte[] dst) {
+        transform.apply(src, width, height, crop, dst);
+        return dst;
+    }
 
-            for (j = 0; j < height / 2; ++j) {
-                dst[size + k] = src[size + bv + i - 2];
-                dst[size2 + k] = src[size + bv + i - 1];
-                bv += width;
-                ++k;
-            }
-        }
+    public static void NV21ToI420pWithRotate90DegreeLeftwise(int width, int height, byte[] src, byte[] dst) {
+        NV21_TO_I420_270.apply(src, width, height, dst);
+    }
 
+    public static void NV21ToI420pWithRotate90DegreeLeftwiseMi(int width, int height, byte[] src, byte[] dst) {
+        NV21_TO_YV12_270.apply(src, width, height, dst);
     }
 
     public static void NV21ToI420pWithRotate90DegreeRightwise(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-        int maxv = (height - 1) * width;
-
-        int i;
-        int j;
-        int bv;
-        for (i = 0; i < width; ++i) {
-            bv = maxv;
-
-            for (j = height; j > 0; --j) {
-                dst[k] = src[bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
-        k = 0;
-        maxv = (height / 2 - 1) * width;
-
-        for (i = 0; i < width; i += 2) {
-            bv = maxv;
-
-            for (j = height / 2; j > 0; --j) {
-                dst[size + k] = src[size + bv + i + 1];
-                dst[size + size / 4 + k] = src[size + bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
+        NV21_TO_I420_90.apply(src, width, height, dst);
     }
 
     public static void NV21ToI420pWithRotate90DegreeRightwiseMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-        int maxv = (height - 1) * width;
-
-        int i;
-        int j;
-        int bv;
-        for (i = 0; i < width; ++i) {
-            bv = maxv;
-
-            for (j = height; j > 0; --j) {
-                dst[k] = src[bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
-        k = 0;
-        maxv = (height / 2 - 1) * width;
-
-        for (i = 0; i < width; i += 2) {
-            bv = maxv;
-
-            for (j = height / 2; j > 0; --j) {
-                dst[size + k] = src[size + bv + i];
-                dst[size + size / 4 + k] = src[size + bv + i + 1];
-                bv -= width;
-                ++k;
-            }
-        }
-
+        NV21_TO_YV12_90.apply(src, width, height, dst);
     }
 
     public static void NV21Rotate90DegreeLeftwise(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-
-        int i;
-        int j;
-        int bv;
-        for (i = width; i > 0; --i) {
-            bv = 0;
-
-            for (j = 0; j < height; ++j) {
-                dst[k] = src[bv + i - 1];
-                bv += width;
-                ++k;
-            }
-        }
-
-        for (i = width; i > 0; i -= 2) {
-            bv = 0;
-
-            for (j = 0; j < height / 2; ++j) {
-                dst[k++] = src[size + bv + i - 2];
-                dst[k++] = src[size + bv + i - 1];
-                bv += width;
-            }
-        }
-
+        NV21_TO_NV21_270.apply(src, width, height, dst);
     }
 
     public static void NV21Rotate90DegreeRightwise(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-        int maxv = (height - 1) * width;
-
-        int i;
-        int j;
-        int bv;
-        for (i = 0; i < width; ++i) {
-            bv = maxv;
-
-            for (j = height; j > 0; --j) {
-                dst[k] = src[bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
-        maxv = (height / 2 - 1) * width;
-
-        for (i = 0; i < width; i += 2) {
-            bv = maxv;
-
-            for (j = height / 2; j > 0; --j) {
-                dst[k++] = src[size + bv + i];
-                dst[k++] = src[size + bv + i + 1];
-                bv -= width;
-            }
-        }
-
+        NV21_TO_NV21_90.apply(src, width, height, dst);
     }
 
     public static void NV21Rotate90DegreeLeftwiseMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-
-        int i;
-        int j;
-        int bv;
-        for (i = width; i > 0; --i) {
-            bv = 0;
-
-            for (j = 0; j < height; ++j) {
-                dst[k] = src[bv + i - 1];
-                bv += width;
-                ++k;
-            }
-        }
-
-        for (i = width; i > 0; i -= 2) {
-            bv = 0;
-
-            for (j = 0; j < height / 2; ++j) {
-                dst[k++] = src[size + bv + i - 1];
-                dst[k++] = src[size + bv + i - 2];
-                bv += width;
-            }
-        }
-
+        NV21_TO_NV12_270.apply(src, width, height, dst);
     }
 
     public static void NV21Rotate90DegreeRightwiseMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-        int maxv = (height - 1) * width;
-
-        int i;
-        int j;
-        int bv;
-        for (i = 0; i < width; ++i) {
-            bv = maxv;
-
-            for (j = height; j > 0; --j) {
-                dst[k] = src[bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
-        maxv = (height / 2 - 1) * width;
-
-        for (i = 0; i < width; i += 2) {
-            bv = maxv;
-
-            for (j = height / 2; j > 0; --j) {
-                dst[k++] = src[size + bv + i + 1];
-                dst[k++] = src[size + bv + i];
-                bv -= width;
-            }
-        }
-
+        NV21_TO_NV12_90.apply(src, width, height, dst);
     }
 
     public static void NV21ToI420pWithRotate180Degree(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-
-        int i;
-        for (i = size; i > 0; --i) {
-            dst[k++] = src[i - 1];
-        }
-
-        k = 0;
-
-        for (i = size / 2; i > 0; i -= 2) {
-            dst[size + k] = src[size + i - 1];
-            dst[size + size / 4 + k] = src[size + i - 2];
-            ++k;
-        }
-
+        NV21_TO_I420_180.apply(src, width, height, dst);
     }
 
     public static void NV21ToI420pWithRotate180DegreeMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
+        NV21_TO_YV12_180.apply(src, width, height, dst);
+    }
 
-        int i;
-        for (i = size; i > 0; --i) {
-            dst[k++] = src[i - 1];
-        }
+    public static byte[] NV21ToI420p(int width, int height, byte[] src) {
+        return NV21ToI420p(width, height, src, new byte[src.length]);
+    }
 
-        k = 0;
+    /**
+     * 从帧池借出目标帧进行转换，用完后需要调用 {@link YuvFramePool#release(byte[])} 归还
+     */
+    public static byte[] NV21ToI420p(int width, int height, byte[] src, YuvFramePool pool) {
+        return NV21ToI420p(width, height, src, pool.acquire());
+    }
 
-        for (i = size / 2; i > 0; i -= 2) {
-            dst[size + k] = src[size + i - 2];
-            dst[size + size / 4 + k] = src[size + i - 1];
-            ++k;
-        }
+    /**
+     * 转换到调用方提供的 dst，不做任何分配
+     */
+    public static byte[] NV21ToI420p(int width, int height, byte[] src, byte[] dst) {
+        NV21_TO_I420.apply(src, width, height, dst);
+        return dst;
+    }
 
+    /**
+     * 转换到 dst，耗时记录到 metrics 的 CONVERT 阶段（例如 {@link PlayManager#getMetrics()}）
+     */
+    public static byte[] NV21ToI420p(int width, int height, byte[] src, byte[] dst, YuvPipelineMetrics metrics) {
+        return transform(NV21_TO_I420, width, height, src, dst, metrics);
     }
 
-    public static byte[] NV21ToI420p(int width, int height, byte[] src) {
-        byte[] dst = new byte[src.length];
-        int size = width * height;
-        System.arraycopy(src, 0, dst, 0, size);
-        int k = 0;
-
-        for (int i = 0; i < size / 2; i += 2) {
-            dst[size + k] = src[size + i + 1];
-            dst[size + size / 4 + k] = src[size + i];
-            ++k;
-        }
+    /**
+     * 数字变焦：只把 NV21 中 crop 区域转换成 I420，dst 至少 {@link YuvFormat#frameSize}(crop.width, crop.height)
+     */
+    public static byte[] NV21ToI420p(int width, int height, byte[] src, YuvCropRect crop, byte[] dst) {
+        NV21_TO_I420.apply(src, width, height, crop, dst);
+        return dst;
+    }
 
+    /**
+     * NV21 转 ARGB（0xAARRGGBB，可直接 Bitmap.setPixels），系数与 GPU 着色器一致，见 {@link YuvRgbConverter}
+     */
+    public static int[] NV21ToARGB(int width, int height, byte[] src, int[] dst) {
+        NV21_TO_ARGB.convert(src, width, height, dst);
         return dst;
+    }
 
+    /**
+     * 多核分条带执行，1080p / 4K 时使用，输出与串行版本一致
+     */
+    public static int[] NV21ToARGB(int width, int height, byte[] src, int[] dst, YuvParallelTransformer parallel) {
+        parallel.apply(NV21_TO_ARGB, src, width, height, dst);
+        return dst;
     }
 
+    /**
+     * I420 转 ARGB，其余同 {@link #NV21ToARGB(int, int, byte[], int[])}
+     */
+    public static int[] I420ToARGB(int width, int height, byte[] src, int[] dst) {
+        I420_TO_ARGB.convert(src, width, height, dst);
+        return dst;
+    }
 
+    /**
+     * 缩小一帧，输出格式与 format 相同；整数倍时盒式抽取，否则双线性，见 {@link YuvScaler}
+     */
+    public static byte[] scale(YuvScaler scaler, YuvFormat format, int srcWidth, int srcHeight, byte[] src,
+                               int dstWidth, int dstHeight, byte[] dst) {
+        scaler.scale(src, 0, srcWidth, srcHeight, format, dst, dstWidth, dstHeight);
+        return dst;
+    }
 
     public static void NV21ToI420pMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        System.arraycopy(src, 0, dst, 0, size);
-        int k = 0;
-
-        for (int i = 0; i < size / 2; i += 2) {
-            dst[size + k] = src[size + i];
-            dst[size + size / 4 + k] = src[size + i + 1];
-            ++k;
-        }
-
+        NV21_TO_YV12.apply(src, width, height, dst);
     }
 
     public static void NV21Rotate180Degree(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-
-        int i;
-        for (i = size; i > 0; --i) {
-            dst[k++] = src[i - 1];
-        }
-
-        k = 0;
-
-        for (i = size / 2; i > 0; i -= 2) {
-            dst[size + k] = src[size + i - 2];
-            dst[size + k + 1] = src[size + i - 1];
-            k += 2;
-        }
-
+        NV21_TO_NV21_180.apply(src, width, height, dst);
     }
 
     public static void NV21Rotate180DegreeMi(int width, int height, byte[] src, byte[] dst) {
-        int size = width * height;
-        int k = 0;
-
-        int i;
-        for (i = size; i > 0; --i) {
-            dst[k++] = src[i - 1];
-        }
-
-        k = 0;
-
-        for (i = size / 2; i > 0; i -= 2) {
-            dst[size + k] = src[size + i - 1];
-            dst[size + k + 1] = src[size + i - 2];
-            k += 2;
-        }
-
+        NV21_TO_NV12_180.apply(src, width, height, dst);
     }
 
     private void changeUV2(int w, int h, byte[] src) {
@@ -377,168 +207,26 @@ public class VideoUtils {
 
     byte[] YUV420spRotateNegative90(byte[] src, int srcWidth, int height) {
         byte[] dst = new byte[src.length];
-        int nWidth = 0;
-        int nHeight = 0;
-        int wh = 0;
-        int uvHeight = 0;
-        if (srcWidth != nWidth || height != nHeight) {
-            wh = srcWidth * height;
-            uvHeight = height >> 1;
-        }
-
-        int k = 0;
-
-        int i;
-        int nPos;
-        int j;
-        for (i = 0; i < srcWidth; ++i) {
-            nPos = srcWidth - 1;
-
-            for (j = 0; j < height; ++j) {
-                dst[k] = src[nPos - i];
-                ++k;
-                nPos += srcWidth;
-            }
-        }
-
-        for (i = 0; i < srcWidth; i += 2) {
-            nPos = wh + srcWidth - 1;
-
-            for (j = 0; j < uvHeight; ++j) {
-                dst[k] = src[nPos - i - 1];
-                dst[k + 1] = src[nPos - i];
-                k += 2;
-                nPos += srcWidth;
-            }
-        }
-
+        NV21_TO_NV21_270.apply(src, srcWidth, height, dst);
         return dst;
     }
 
     byte[] YUV420spRotatePositive90(byte[] src, int srcWidth, int height) {
         byte[] dst = new byte[src.length];
-        int nWidth = 0;
-        int nHeight = 0;
-        int wh = 0;
-        int uvHeight = 0;
-        if (srcWidth != nWidth || height != nHeight) {
-            nHeight = height;
-            wh = srcWidth * height;
-            uvHeight = height >> 1;
-        }
-
-        int k = 0;
-
-        int i;
-        int nPos;
-        int j;
-        for (i = 0; i < srcWidth; ++i) {
-            nPos = (nHeight - 1) * srcWidth;
-
-            for (j = 0; j < height; ++j) {
-                dst[k] = src[nPos - i];
-                ++k;
-                nPos -= srcWidth;
-            }
-        }
-
-        for (i = 0; i < srcWidth; i += 2) {
-            nPos = wh + srcWidth - 1;
-
-            for (j = 0; j < uvHeight; ++j) {
-                dst[k] = src[nPos - i - 1];
-                dst[k + 1] = src[nPos - i];
-                k += 2;
-                nPos += srcWidth;
-            }
-        }
-
+        NV21_TO_NV21_90.apply(src, srcWidth, height, dst);
         return dst;
     }
 
     void changeNV21ToY420(byte[] src, byte[] dst, int width, int heigth) {
-        int size = width * heigth;
-
-        for (int i = 0; i < size; ++i) {
-            dst[i] = src[i];
-        }
-
-        for (int j = 0; j < size / 2; j += 2) {
-            dst[j + size] = src[size + j + 1];
-            dst[j + size / 4] = src[size + j];
-        }
-
+        NV21_TO_I420.apply(src, width, heigth, dst);
     }
 
     void YUV420spRotateClockwise90ToUV(byte[] des, byte[] src, int width, int height) {
-        int size = width * height;
-        int k = 0;
-        int bindex = height - 1;
-        int maxv = (height - 1) * width;
-
-        int bv;
-        int i;
-        int j;
-        for (i = 0; i < width; ++i) {
-            bv = maxv;
-
-            for (j = bindex; j >= 0; --j) {
-                des[k] = src[bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
-        bindex = height / 2 - 1;
-        maxv = (height / 2 - 1) * width;
-
-        for (i = 0; i < width; i += 2) {
-            bv = maxv;
-
-            for (j = bindex; j >= 0; --j) {
-                des[k] = src[size + bv + i];
-                des[k + 1] = src[size + bv + i + 1];
-                bv -= width;
-                k += 2;
-            }
-        }
-
+        NV21_TO_NV21_90.apply(src, width, height, des);
     }
 
     void YUV420spRotateClockwise90To420P(byte[] des, byte[] src, int width, int height) {
-        int size = width * height;
-        int k = 0;
-        int bindex = height - 1;
-        int maxv = (height - 1) * width;
-
-        int bv;
-        int i;
-        int j;
-        for (i = 0; i < width; ++i) {
-            bv = maxv;
-
-            for (j = bindex; j >= 0; --j) {
-                des[k] = src[bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
-        bindex = height / 2 - 1;
-        maxv = (height / 2 - 1) * width;
-        k = 0;
-
-        for (i = 0; i < width; i += 2) {
-            bv = maxv;
-
-            for (j = bindex; j >= 0; --j) {
-                des[k + size] = src[size + bv + i + 1];
-                des[size + size / 4 + k] = src[size + bv + i];
-                bv -= width;
-                ++k;
-            }
-        }
-
+        NV21_TO_I420_90.apply(src, width, height, des);
     }
 
     private void yuv420spToyuv420p(int w, int h, byte[] src) {
@@ -551,74 +239,41 @@ public class VideoUtils {
         }
     }
 
+    /**
+     * 原地交换 NV21 / NV12 的 UV 顺序
+     */
     public static void changeUV(int w, int h, byte[] src) {
         int size = w * h;
-
-        for (int i = 0; i < size / 2; i += 2) {
-            byte tmp = src[size + i];
-            src[size + i] = src[size + i + 1];
-            src[size + i + 1] = tmp;
-        }
+        YuvSwar.swapPairs(src, size, src, size, size / 4);
     }
 
     public static void NV21ToNV12(byte[] nv21, byte[] nv12, int width, int height) {
         if (nv21 == null || nv12 == null) return;
-        int framesize = width * height;
-        int i = 0, j = 0;
-        System.arraycopy(nv21, 0, nv12, 0, framesize);
-        for (i = 0; i < framesize; i++) {
-            nv12[i] = nv21[i];
-        }
-        for (j = 0; j < framesize / 2; j += 2) {
-            nv12[framesize + j - 1] = nv21[j + framesize];
-        }
-        for (j = 0; j < framesize / 2; j += 2) {
-            nv12[framesize + j] = nv21[j + framesize - 1];
-        }
+        NV21_TO_NV12.apply(nv21, width, height, nv12);
     }
 
     public static void Nv21ToI420(byte[] data, byte[] dstData, int w, int h) {
-
-        int size = w * h;
-        // Y
-        System.arraycopy(data, 0, dstData, 0, size);
-        for (int i = 0; i < size / 4; i++) {
-            dstData[size + i] = data[size + i * 2 + 1]; //U
-            dstData[size + size / 4 + i] = data[size + i * 2]; //V
-        }
+        NV21_TO_I420.apply(data, w, h, dstData);
     }
 
     public static void Nv21ToYuv420SP(byte[] data, byte[] dstData, int w, int h) {
-        int size = w * h;
-        // Y
-        System.arraycopy(data, 0, dstData, 0, size);
-
-        for (int i = 0; i < size / 4; i++) {
-            dstData[size + i * 2] = data[size + i * 2 + 1]; //U
-            dstData[size + i * 2 + 1] = data[size + i * 2]; //V
-        }
+        NV21_TO_NV12.apply(data, w, h, dstData);
     }
 
     public static byte[] rotateYUV420Degree90(byte[] data, int imageWidth, int imageHeight) {
-        byte[] yuv = new byte[imageWidth * imageHeight * 3 / 2];
-        int i = 0;
-        for (int x = 0; x < imageWidth; x++) {
-            for (int y = imageHeight - 1; y >= 0; y--) {
-                yuv[i] = data[y * imageWidth + x];
-                i++;
-            }
-        }
-        i = imageWidth * imageHeight * 3 / 2 - 1;
-        for (int x = imageWidth - 1; x > 0; x = x - 2) {
-            for (int y = 0; y < imageHeight / 2; y++) {
-                yuv[i] = data[(imageWidth * imageHeight) + (y * imageWidth) + x];
-                i--;
-                yuv[i] = data[(imageWidth * imageHeight) + (y * imageWidth)
-                        + (x - 1)];
-                i--;
-            }
-        }
+        return rotateYUV420Degree90(data, imageWidth, imageHeight, new byte[imageWidth * imageHeight * 3 / 2]);
+    }
+
+    /**
+     * 从帧池借出目标帧进行旋转，用完后需要调用 {@link YuvFramePool#release(byte[])} 归还
+     */
+    public static byte[] rotateYUV420Degree90(byte[] data, int imageWidth, int imageHeight, YuvFramePool pool) {
+        return rotateYUV420Degree90(data, imageWidth, imageHeight, pool.acquire());
+    }
+
+    public static byte[] rotateYUV420Degree90(byte[] data, int imageWidth, int imageHeight, byte[] yuv) {
+        NV21_TO_NV21_90.apply(data, imageWidth, imageHeight, yuv);
         return yuv;
     }
 
-}
\ No newline at end of file
+}
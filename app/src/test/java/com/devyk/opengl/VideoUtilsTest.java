@@ -0,0 +1,386 @@
+package com.devyk.opengl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * VideoUtils 每个方法的输出与按坐标逐像素计算的朴素实现逐字节比较；原始循环输出正确的方法
+ * 同时与 {@link VideoUtilsReference} 比较。原始版本输出错误的 NV21ToNV12、changeNV21ToY420、
+ * YUV420spRotatePositive90 另外用 6x4 的字面值固定修正后的输出。
+ */
+public class VideoUtilsTest {
+    /**
+     * 34x18 的色度平面是 17x9，宽高都不是分块大小的整数倍
+     */
+    private static final int[][] SIZES = {{6, 4}, {34, 18}, {1280, 720}};
+
+    interface Method {
+        void run(int width, int height, byte[] src, byte[] dst);
+    }
+
+    @Test
+    public void rotate90ToI420() {
+        check(VideoUtils::NV21ToI420pWithRotate90DegreeLeftwise,
+                VideoUtilsReference::NV21ToI420pWithRotate90DegreeLeftwise, YuvFormat.I420, 270);
+        check(VideoUtils::NV21ToI420pWithRotate90DegreeLeftwiseMi,
+                VideoUtilsReference::NV21ToI420pWithRotate90DegreeLeftwiseMi, YuvFormat.YV12, 270);
+        check(VideoUtils::NV21ToI420pWithRotate90DegreeRightwise,
+                VideoUtilsReference::NV21ToI420pWithRotate90DegreeRightwise, YuvFormat.I420, 90);
+        check(VideoUtils::NV21ToI420pWithRotate90DegreeRightwiseMi,
+                VideoUtilsReference::NV21ToI420pWithRotate90DegreeRightwiseMi, YuvFormat.YV12, 90);
+    }
+
+    @Test
+    public void rotate90ToNV21() {
+        check(VideoUtils::NV21Rotate90DegreeLeftwise,
+                VideoUtilsReference::NV21Rotate90DegreeLeftwise, YuvFormat.NV21, 270);
+        check(VideoUtils::NV21Rotate90DegreeLeftwiseMi,
+                VideoUtilsReference::NV21Rotate90DegreeLeftwiseMi, YuvFormat.NV12, 270);
+        check(VideoUtils::NV21Rotate90DegreeRightwise,
+                VideoUtilsReference::NV21Rotate90DegreeRightwise, YuvFormat.NV21, 90);
+        check(VideoUtils::NV21Rotate90DegreeRightwiseMi,
+                VideoUtilsReference::NV21Rotate90DegreeRightwiseMi, YuvFormat.NV12, 90);
+    }
+
+    @Test
+    public void rotate180() {
+        check(VideoUtils::NV21ToI420pWithRotate180Degree,
+                VideoUtilsReference::NV21ToI420pWithRotate180Degree, YuvFormat.I420, 180);
+        check(VideoUtils::NV21ToI420pWithRotate180DegreeMi,
+                VideoUtilsReference::NV21ToI420pWithRotate180DegreeMi, YuvFormat.YV12, 180);
+        check(VideoUtils::NV21Rotate180Degree,
+                VideoUtilsReference::NV21Rotate180Degree, YuvFormat.NV21, 180);
+        check(VideoUtils::NV21Rotate180DegreeMi,
+                VideoUtilsReference::NV21Rotate180DegreeMi, YuvFormat.NV12, 180);
+    }
+
+    @Test
+    public void rotateYUV420Degree90() {
+        Method reference = (w, h, s, d) -> copy(VideoUtilsReference.rotateYUV420Degree90(s, w, h), d);
+        check((w, h, s, d) -> copy(VideoUtils.rotateYUV420Degree90(s, w, h), d), reference, YuvFormat.NV21, 90);
+        check((w, h, s, d) -> VideoUtils.rotateYUV420Degree90(s, w, h, d), reference, YuvFormat.NV21, 90);
+        check((w, h, s, d) -> copy(VideoUtils.rotateYUV420Degree90(s, w, h, new YuvFramePool(w, h)), d),
+                reference, YuvFormat.NV21, 90);
+    }
+
+    @Test
+    public void convertWithoutRotation() {
+        Method reference = (w, h, s, d) -> copy(VideoUtilsReference.NV21ToI420p(w, h, s), d);
+        check((w, h, s, d) -> copy(VideoUtils.NV21ToI420p(w, h, s), d), reference, YuvFormat.I420, 0);
+        check(VideoUtils::NV21ToI420p, reference, YuvFormat.I420, 0);
+        check((w, h, s, d) -> copy(VideoUtils.NV21ToI420p(w, h, s, new YuvFramePool(w, h)), d),
+                reference, YuvFormat.I420, 0);
+        check((w, h, s, d) -> VideoUtils.NV21ToI420p(w, h, s, d, new YuvPipelineMetrics()),
+                reference, YuvFormat.I420, 0);
+        check((w, h, s, d) -> VideoUtils.Nv21ToI420(s, d, w, h),
+                (w, h, s, d) -> VideoUtilsReference.Nv21ToI420(s, d, w, h), YuvFormat.I420, 0);
+        check(VideoUtils::NV21ToI420pMi, VideoUtilsReference::NV21ToI420pMi, YuvFormat.YV12, 0);
+        check((w, h, s, d) -> VideoUtils.Nv21ToYuv420SP(s, d, w, h),
+                (w, h, s, d) -> VideoUtilsReference.Nv21ToYuv420SP(s, d, w, h), YuvFormat.NV12, 0);
+    }
+
+    @Test
+    public void changeUV() {
+        check((w, h, s, d) -> {
+            System.arraycopy(s, 0, d, 0, d.length);
+            VideoUtils.changeUV(w, h, d);
+        }, (w, h, s, d) -> {
+            System.arraycopy(s, 0, d, 0, d.length);
+            VideoUtilsReference.changeUV(w, h, d);
+        }, YuvFormat.NV12, 0);
+    }
+
+    @Test
+    public void instanceMethods() {
+        VideoUtils utils = new VideoUtils();
+        check((w, h, s, d) -> copy(utils.YUV420spRotateNegative90(s, w, h), d),
+                (w, h, s, d) -> copy(VideoUtilsReference.YUV420spRotateNegative90(s, w, h), d), YuvFormat.NV21, 270);
+        check((w, h, s, d) -> utils.YUV420spRotateClockwise90ToUV(d, s, w, h),
+                (w, h, s, d) -> VideoUtilsReference.YUV420spRotateClockwise90ToUV(d, s, w, h), YuvFormat.NV21, 90);
+        check((w, h, s, d) -> utils.YUV420spRotateClockwise90To420P(d, s, w, h),
+                (w, h, s, d) -> VideoUtilsReference.YUV420spRotateClockwise90To420P(d, s, w, h), YuvFormat.I420, 90);
+    }
+
+    @Test
+    public void NV21ToNV12() {
+        check((w, h, s, d) -> VideoUtils.NV21ToNV12(s, d, w, h), null, YuvFormat.NV12, 0);
+        // 原始版本把 V 写到了 Y 平面最后一个字节，U/V 错开一位
+        byte[] nv12 = new byte[36];
+        VideoUtils.NV21ToNV12(sequence(36), nv12, 6, 4);
+        assertArrayEquals(concat(sequence(24), bytes(25, 24, 27, 26, 29, 28, 31, 30, 33, 32, 35, 34)), nv12);
+    }
+
+    @Test
+    public void changeNV21ToY420() {
+        VideoUtils utils = new VideoUtils();
+        check((w, h, s, d) -> utils.changeNV21ToY420(s, d, w, h), null, YuvFormat.I420, 0);
+        // 原始版本把 V 写进了 Y 平面，U 平面隔一个字节写一次
+        byte[] i420 = new byte[36];
+        utils.changeNV21ToY420(sequence(36), i420, 6, 4);
+        assertArrayEquals(concat(sequence(24), bytes(25, 27, 29, 31, 33, 35, 24, 26, 28, 30, 32, 34)), i420);
+    }
+
+    @Test
+    public void YUV420spRotatePositive90() {
+        VideoUtils utils = new VideoUtils();
+        check((w, h, s, d) -> copy(utils.YUV420spRotatePositive90(s, w, h), d), null, YuvFormat.NV21, 90);
+        // 原始版本亮度读错了列，色度按逆时针旋转
+        byte[] rotated = utils.YUV420spRotatePositive90(sequence(36), 6, 4);
+        assertArrayEquals(bytes(
+                18, 12, 6, 0,
+                19, 13, 7, 1,
+                20, 14, 8, 2,
+                21, 15, 9, 3,
+                22, 16, 10, 4,
+                23, 17, 11, 5,
+                30, 31, 24, 25,
+                32, 33, 26, 27,
+                34, 35, 28, 29), rotated);
+    }
+
+    @Test
+    public void crop() {
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            byte[] src = frame(width, height);
+            YuvCropRect[] crops = {
+                    new YuvCropRect(0, 0, width, height),
+                    new YuvCropRect(2, 2, 2, 2),
+                    YuvCropRect.zoom(width, height, 2f, width / 3, height / 3)
+            };
+            for (YuvCropRect crop : crops) {
+                byte[] expected = naive(src, width, height, crop, YuvFormat.I420, 0);
+                byte[] dst = new byte[expected.length];
+                assertArrayEquals(crop + " " + width + "x" + height, expected,
+                        VideoUtils.NV21ToI420p(width, height, src, crop, dst));
+
+                YuvTransform rotate = new YuvTransform.Builder()
+                        .withDestinationFormat(YuvFormat.NV12)
+                        .withRotation(90)
+                        .build();
+                expected = naive(src, width, height, crop, YuvFormat.NV12, 90);
+                dst = new byte[expected.length];
+                assertArrayEquals(crop + " " + width + "x" + height, expected,
+                        VideoUtils.transform(rotate, width, height, src, crop, dst));
+            }
+        }
+    }
+
+    @Test
+    public void transform() {
+        YuvParallelTransformer parallel = new YuvParallelTransformer(null, 3, 0);
+        try {
+            for (int rotation = 0; rotation < 360; rotation += 90) {
+                YuvTransform transform = new YuvTransform.Builder()
+                        .withDestinationFormat(YuvFormat.YV12)
+                        .withRotation(rotation)
+                        .build();
+                check((w, h, s, d) -> VideoUtils.transform(transform, w, h, s, d), null, YuvFormat.YV12, rotation);
+                check((w, h, s, d) -> VideoUtils.transform(transform, w, h, s, d, parallel),
+                        null, YuvFormat.YV12, rotation);
+                check((w, h, s, d) -> VideoUtils.transform(transform, w, h, s, d, new YuvPipelineMetrics()),
+                        null, YuvFormat.YV12, rotation);
+            }
+        } finally {
+            parallel.release();
+        }
+    }
+
+    /**
+     * 所有源 / 目标格式组合 × 旋转 × 镜像。10x6 的色度平面是 5x3；水平镜像不旋转时
+     * 亮度走 reverseCopy，半平面源的色度走 colStep == -2
+     */
+    @Test
+    public void flip() {
+        int[][] sizes = {{6, 4}, {10, 6}, {34, 18}, {1280, 720}};
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            YuvCropRect full = new YuvCropRect(0, 0, width, height);
+            byte[] src = frame(width, height);
+            for (YuvFormat srcFormat : YuvFormat.values()) {
+                for (YuvFormat dstFormat : YuvFormat.values()) {
+                    for (int rotation = 0; rotation < 360; rotation += 90) {
+                        for (int flip = 0; flip < 4; flip++) {
+                            boolean flipHorizontal = (flip & 1) != 0;
+                            boolean flipVertical = (flip & 2) != 0;
+                            YuvTransform transform = new YuvTransform.Builder()
+                                    .withSourceFormat(srcFormat)
+                                    .withDestinationFormat(dstFormat)
+                                    .withRotation(rotation)
+                                    .withFlipHorizontal(flipHorizontal)
+                                    .withFlipVertical(flipVertical)
+                                    .build();
+                            byte[] expected = naive(src, width, height, full, srcFormat, dstFormat, rotation,
+                                    flipHorizontal, flipVertical);
+                            byte[] dst = new byte[expected.length];
+                            Arrays.fill(dst, (byte) 0x5a);
+                            VideoUtils.transform(transform, width, height, src, dst);
+                            assertArrayEquals(srcFormat + " -> " + dstFormat + " " + rotation
+                                    + (flipHorizontal ? " flipH" : "") + (flipVertical ? " flipV" : "")
+                                    + " " + width + "x" + height, expected, dst);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 对每个尺寸比较 method 与朴素实现，reference 不为 null 时也与原始循环比较
+     */
+    private static void check(Method method, Method reference, YuvFormat format, int rotation) {
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            byte[] src = frame(width, height);
+            byte[] expected = naive(src, width, height, new YuvCropRect(0, 0, width, height), format, rotation);
+            String message = format + " " + rotation + " " + width + "x" + height;
+
+            byte[] dst = new byte[expected.length];
+            Arrays.fill(dst, (byte) 0x5a);
+            method.run(width, height, src.clone(), dst);
+            assertArrayEquals(message, expected, dst);
+
+            if (reference != null) {
+                Arrays.fill(dst, (byte) 0x5a);
+                reference.run(width, height, src.clone(), dst);
+                assertArrayEquals("reference " + message, expected, dst);
+            }
+        }
+    }
+
+    /**
+     * 按目标坐标逐像素取源像素：NV21 中 crop 区域顺时针旋转 rotation 度后写成 format
+     */
+    private static byte[] naive(byte[] src, int width, int height, YuvCropRect crop, YuvFormat format,
+                                int rotation) {
+        return naive(src, width, height, crop, YuvFormat.NV21, format, rotation, false, false);
+    }
+
+    /**
+     * 同上，源为 srcFormat，旋转之后再按输出坐标做水平 / 垂直镜像
+     */
+    private static byte[] naive(byte[] src, int width, int height, YuvCropRect crop, YuvFormat srcFormat,
+                                YuvFormat format, int rotation, boolean flipHorizontal, boolean flipVertical) {
+        boolean swap = rotation % 180 != 0;
+        int dstWidth = swap ? crop.height : crop.width;
+        int dstHeight = swap ? crop.width : crop.height;
+        int ySize = dstWidth * dstHeight;
+        byte[] dst = new byte[ySize * 3 / 2];
+        for (int y = 0; y < dstHeight; y++) {
+            for (int x = 0; x < dstWidth; x++) {
+                int fx = flipHorizontal ? dstWidth - 1 - x : x;
+                int fy = flipVertical ? dstHeight - 1 - y : y;
+                int sx = crop.left + sourceX(fx, fy, crop.width, crop.height, rotation);
+                int sy = crop.top + sourceY(fx, fy, crop.width, crop.height, rotation);
+                dst[y * dstWidth + x] = src[sy * width + sx];
+            }
+        }
+        int chromaWidth = dstWidth / 2;
+        int chromaHeight = dstHeight / 2;
+        int chromaSize = ySize / 4;
+        int srcU = srcFormat.uOffset(width, height);
+        int srcV = srcFormat.vOffset(width, height);
+        int srcPixelStride = srcFormat.chromaPixelStride();
+        int srcRowStride = srcFormat.chromaRowStride(width);
+        for (int y = 0; y < chromaHeight; y++) {
+            for (int x = 0; x < chromaWidth; x++) {
+                int fx = flipHorizontal ? chromaWidth - 1 - x : x;
+                int fy = flipVertical ? chromaHeight - 1 - y : y;
+                int sx = crop.left / 2 + sourceX(fx, fy, crop.width / 2, crop.height / 2, rotation);
+                int sy = crop.top / 2 + sourceY(fx, fy, crop.width / 2, crop.height / 2, rotation);
+                int s = sy * srcRowStride + sx * srcPixelStride;
+                byte v = src[srcV + s];
+                byte u = src[srcU + s];
+                int planar = ySize + y * chromaWidth + x;
+                int interleaved = ySize + y * dstWidth + x * 2;
+                switch (format) {
+                    case I420:
+                        dst[planar] = u;
+                        dst[planar + chromaSize] = v;
+                        break;
+                    case YV12:
+                        dst[planar] = v;
+                        dst[planar + chromaSize] = u;
+                        break;
+                    case NV21:
+                        dst[interleaved] = v;
+                        dst[interleaved + 1] = u;
+                        break;
+                    case NV12:
+                        dst[interleaved] = u;
+                        dst[interleaved + 1] = v;
+                        break;
+                }
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * 输出 (x, y) 对应的源坐标，width / height 为源平面尺寸
+     */
+    private static int sourceX(int x, int y, int width, int height, int rotation) {
+        switch (rotation) {
+            case 90:
+                return y;
+            case 180:
+                return width - 1 - x;
+            case 270:
+                return width - 1 - y;
+            default:
+                return x;
+        }
+    }
+
+    private static int sourceY(int x, int y, int width, int height, int rotation) {
+        switch (rotation) {
+            case 90:
+                return height - 1 - x;
+            case 180:
+                return height - 1 - y;
+            case 270:
+                return x;
+            default:
+                return y;
+        }
+    }
+
+    private static byte[] frame(int width, int height) {
+        byte[] frame = new byte[width * height * 3 / 2];
+        new Random(width * 31 + height).nextBytes(frame);
+        return frame;
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static void copy(byte[] from, byte[] to) {
+        System.arraycopy(from, 0, to, 0, to.length);
+    }
+}
@@ -0,0 +1,35 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.VideoUtils;
+import com.devyk.opengl.YuvParallelTransformer;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * <pre>
+ *     desc    : This is ArgbBenchmark NV21 -> ARGB 定点转换，串行与分条带多核
+ * </pre>
+ */
+public class ArgbBenchmark extends KernelBenchmark {
+
+    @Param({"serial", "parallel"})
+    public String execution;
+
+    private YuvParallelTransformer parallel;
+
+    @Override
+    Kernel createKernel() {
+        int[] argb = new int[size.width * size.height];
+        if ("serial".equals(execution)) {
+            return (w, h, s, d) -> VideoUtils.NV21ToARGB(w, h, s, argb);
+        }
+        parallel = new YuvParallelTransformer();
+        return (w, h, s, d) -> VideoUtils.NV21ToARGB(w, h, s, argb, parallel);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (parallel != null) parallel.release();
+    }
+}
@@ -0,0 +1,26 @@
+package com.devyk.opengl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <pre>
+ *     desc    : This is Bandwidth 吞吐模式下按时间归一化的处理字节数，JMH 输出为 MB/s
+ * </pre>
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Bandwidth {
+    /**
+     * 每处理一帧累加一帧输入的 MB 数
+     */
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.VideoUtils;
+import com.devyk.opengl.YuvCropRect;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * <pre>
+ *     desc    : This is CropBenchmark 画面中心放大 zoom 倍的区域从 NV21 转换成 I420，
+ *     耗时应与区域面积（1 / zoom²）成正比
+ * </pre>
+ */
+public class CropBenchmark extends KernelBenchmark {
+
+    @Param({"2", "4"})
+    public float zoom;
+
+    @Override
+    Kernel createKernel() {
+        YuvCropRect crop = YuvCropRect.zoom(size.width, size.height, zoom, size.width / 2, size.height / 2);
+        return (w, h, s, d) -> VideoUtils.NV21ToI420p(w, h, s, crop, d);
+    }
+}
@@ -0,0 +1,59 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.YuvDirtyRegionTracker;
+import com.devyk.opengl.YuvFormat;
+import com.devyk.opengl.YuvFrameBuffer;
+import com.devyk.opengl.YuvFrameChangeDetector;
+
+import org.openjdk.jmh.annotations.Param;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     desc    : This is FrameDiffBenchmark 判断画面是否变化的开销
+ *
+ *     detectDuplicate：默认抽样密度（每 8 行一行、隔一个 long）的重复帧哈希，每帧内容相同；
+ *     dirtyRegionDiff：两帧交替，只有中间一个 64 行的行带不同，每次整帧比较，再把这一个行带拷进影子副本。
+ * </pre>
+ */
+public class FrameDiffBenchmark extends KernelBenchmark {
+
+    @Param({"detectDuplicate", "dirtyRegionDiff"})
+    public String kernel;
+
+    @Override
+    Kernel createKernel() {
+        switch (kernel) {
+            case "detectDuplicate": {
+                YuvFrameChangeDetector detector = new YuvFrameChangeDetector.Builder().build();
+                return (w, h, s, d) -> detector.isDuplicate(s, 0, w, h, YuvFormat.NV21);
+            }
+            case "dirtyRegionDiff":
+                return dirtyRegionKernel();
+            default:
+                throw new IllegalArgumentException("unknown kernel " + kernel);
+        }
+    }
+
+    private Kernel dirtyRegionKernel() {
+        ByteBuffer first = ByteBuffer.allocateDirect(src.length);
+        first.put(src).flip();
+        ByteBuffer second = ByteBuffer.allocateDirect(src.length);
+        second.put(src).flip();
+        int band = (size.height / 2) & ~63;
+        for (int i = band * size.width, end = i + 64 * size.width; i < end; i++) {
+            second.put(i, (byte) ~src[i]);
+        }
+        YuvFrameBuffer frame = new YuvFrameBuffer();
+        YuvDirtyRegionTracker tracker = new YuvDirtyRegionTracker.Builder().build();
+        frame.put(first, size.width, size.height, YuvFormat.NV21);
+        tracker.update(frame);
+        boolean[] odd = new boolean[1];
+        return (w, h, s, d) -> {
+            odd[0] = !odd[0];
+            frame.put(odd[0] ? second : first, w, h, YuvFormat.NV21);
+            return tracker.update(frame);
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.devyk.opengl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ *     desc    : This is KernelBenchmark 每次调用处理一帧的 kernel 基准的公共部分
+ *
+ *     子类对应一个功能，只声明与该功能有关的参数，在 {@link #createKernel()} 中创建要测的 kernel。
+ *     nsPerFrame 输出 ns/帧，megabytesPerSecond 的 megabytes 辅助计数输出 MB/s（按输入帧大小），
+ *     gc profiler 输出 gc.alloc.rate（MB/s）与 gc.alloc.rate.norm（B/帧）。
+ * </pre>
+ */
+@State(Scope.Thread)
+public abstract class KernelBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String resolution;
+
+    /**
+     * 输入帧（固定种子的随机 NV21）和足够大的输出帧
+     */
+    Resolution size;
+    byte[] src;
+    byte[] dst;
+    private double frameMegabytes;
+    private Kernel runner;
+
+    interface Kernel {
+        Object run(int width, int height, byte[] src, byte[] dst);
+    }
+
+    @Setup
+    public void setup() {
+        size = Resolution.parse(resolution);
+        src = size.randomFrame();
+        dst = new byte[src.length];
+        frameMegabytes = size.frameMegabytes();
+        runner = createKernel();
+    }
+
+    /**
+     * 参数已经注入、src / dst 已经分配后调用
+     */
+    abstract Kernel createKernel();
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object nsPerFrame() {
+        return runner.run(size.width, size.height, src, dst);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object megabytesPerSecond(Bandwidth bandwidth) {
+        bandwidth.megabytes += frameMegabytes;
+        return runner.run(size.width, size.height, src, dst);
+    }
+}
@@ -0,0 +1,39 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.VideoUtils;
+import com.devyk.opengl.YuvFormat;
+import com.devyk.opengl.YuvParallelTransformer;
+import com.devyk.opengl.YuvTransform;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * <pre>
+ *     desc    : This is ParallelTransformBenchmark NV21 -> I420 分条带多核执行，
+ *     与 VideoUtilsBenchmark / RotateBenchmark 中对应的串行 kernel 对比
+ * </pre>
+ */
+public class ParallelTransformBenchmark extends KernelBenchmark {
+
+    @Param({"0", "90"})
+    public int rotation;
+
+    private YuvParallelTransformer parallel;
+
+    @Override
+    Kernel createKernel() {
+        parallel = new YuvParallelTransformer();
+        YuvTransform transform = new YuvTransform.Builder()
+                .withSourceFormat(YuvFormat.NV21)
+                .withDestinationFormat(YuvFormat.I420)
+                .withRotation(rotation)
+                .build();
+        return (w, h, s, d) -> VideoUtils.transform(transform, w, h, s, d, parallel);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.release();
+    }
+}
@@ -0,0 +1,51 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.YuvFrameRecorder;
+import com.devyk.opengl.YuvRecorderFullPolicy;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <pre>
+ *     desc    : This is RecordBenchmark 持续录制 I420 原始帧
+ *
+ *     队列满时等待写盘（BLOCK），吞吐就是持续录制的写盘速度。每次迭代录到一个新的临时文件，
+ *     迭代结束时关闭并删除，磁盘占用不超过一次迭代写出的量（4K、1 秒迭代约 1 GB），
+ *     不会在整个 trial 中累积到几十 GB。
+ * </pre>
+ */
+public class RecordBenchmark extends KernelBenchmark {
+
+    private YuvFrameRecorder recorder;
+    private File recordFile;
+
+    @Override
+    Kernel createKernel() {
+        return (w, h, s, d) -> recorder.record(s);
+    }
+
+    @Setup(Level.Iteration)
+    public void openFile() throws IOException {
+        recordFile = File.createTempFile("record", ".yuv");
+        recorder = new YuvFrameRecorder.Builder(recordFile, size.width, size.height)
+                .withFullPolicy(YuvRecorderFullPolicy.BLOCK)
+                .build();
+    }
+
+    /**
+     * 等待队列中的帧写完（计入迭代之外）后删除文件
+     */
+    @TearDown(Level.Iteration)
+    public void deleteFile() throws IOException {
+        try {
+            recorder.close();
+        } finally {
+            recordFile.delete();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.YuvFrameBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ *     desc    : This is RenderStagingBenchmark I420Renderer.setYuvData 在 CPU 侧的暂存开销
+ *
+ *     暂存逻辑在纯 Java 的 YuvFrameBuffer 中，不需要 GL 环境；每帧还会取一次三个平面视图，
+ *     与 onDrawFrame 上传前的操作一致。
+ * </pre>
+ */
+@State(Scope.Thread)
+public class RenderStagingBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String resolution;
+
+    /**
+     * byteArray：setYuvData(ByteArray)；heapBuffer / directBuffer：setYuvData(ByteBuffer)
+     */
+    @Param({"byteArray", "heapBuffer", "directBuffer"})
+    public String source;
+
+    private Resolution size;
+    private byte[] frame;
+    private ByteBuffer buffer;
+    private boolean fromArray;
+    private double frameMegabytes;
+    private final YuvFrameBuffer frameBuffer = new YuvFrameBuffer();
+
+    @Setup
+    public void setup() {
+        size = Resolution.parse(resolution);
+        frame = size.randomFrame();
+        frameMegabytes = size.frameMegabytes();
+        fromArray = "byteArray".equals(source);
+        if ("directBuffer".equals(source)) {
+            buffer = ByteBuffer.allocateDirect(frame.length);
+            buffer.put(frame).clear();
+        } else {
+            buffer = ByteBuffer.wrap(frame);
+        }
+    }
+
+    private ByteBuffer stage() {
+        if (fromArray) {
+            frameBuffer.put(frame, size.width, size.height);
+        } else {
+            frameBuffer.put(buffer, size.width, size.height);
+        }
+        frameBuffer.rewind();
+        frameBuffer.plane(1);
+        frameBuffer.plane(2);
+        return frameBuffer.plane(0);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public ByteBuffer nsPerFrame() {
+        return stage();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public ByteBuffer megabytesPerSecond(Bandwidth bandwidth) {
+        bandwidth.megabytes += frameMegabytes;
+        return stage();
+    }
+}
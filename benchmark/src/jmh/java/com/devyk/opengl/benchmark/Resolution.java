@@ -0,0 +1,42 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.YuvFormat;
+
+import java.util.Random;
+
+/**
+ * <pre>
+ *     desc    : This is Resolution 解析 "宽x高" 参数并生成测试帧
+ * </pre>
+ */
+final class Resolution {
+    final int width;
+    final int height;
+
+    private Resolution(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    static Resolution parse(String value) {
+        int x = value.indexOf('x');
+        return new Resolution(Integer.parseInt(value.substring(0, x)), Integer.parseInt(value.substring(x + 1)));
+    }
+
+    int frameSize() {
+        return YuvFormat.frameSize(width, height);
+    }
+
+    double frameMegabytes() {
+        return frameSize() / 1e6;
+    }
+
+    /**
+     * 固定种子的随机帧，保证每次运行数据一致
+     */
+    byte[] randomFrame() {
+        byte[] frame = new byte[frameSize()];
+        new Random(frameSize()).nextBytes(frame);
+        return frame;
+    }
+}
@@ -0,0 +1,86 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.VideoUtils;
+import com.devyk.opengl.VideoUtilsReference;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * <pre>
+ *     desc    : This is RotateBenchmark VideoUtils 的 90 / 180 度旋转（可同时转换格式）
+ *
+ *     implementation 为 reference 时运行改为 YuvTransform 之前的逐像素循环（{@link VideoUtilsReference}），
+ *     用来对比分块旋转的收益。
+ * </pre>
+ */
+public class RotateBenchmark extends KernelBenchmark {
+
+    @Param({
+            "NV21ToI420pWithRotate90DegreeLeftwise",
+            "NV21ToI420pWithRotate90DegreeLeftwiseMi",
+            "NV21ToI420pWithRotate90DegreeRightwise",
+            "NV21ToI420pWithRotate90DegreeRightwiseMi",
+            "NV21Rotate90DegreeLeftwise",
+            "NV21Rotate90DegreeLeftwiseMi",
+            "NV21Rotate90DegreeRightwise",
+            "NV21Rotate90DegreeRightwiseMi",
+            "NV21ToI420pWithRotate180Degree",
+            "NV21ToI420pWithRotate180DegreeMi",
+            "NV21Rotate180Degree",
+            "NV21Rotate180DegreeMi",
+            "rotateYUV420Degree90"
+    })
+    public String kernel;
+
+    @Param({"transform", "reference"})
+    public String implementation;
+
+    interface Rotate {
+        void run(int width, int height, byte[] src, byte[] dst);
+    }
+
+    @Override
+    Kernel createKernel() {
+        switch (kernel) {
+            case "NV21ToI420pWithRotate90DegreeLeftwise":
+                return kernel(VideoUtils::NV21ToI420pWithRotate90DegreeLeftwise, VideoUtilsReference::NV21ToI420pWithRotate90DegreeLeftwise);
+            case "NV21ToI420pWithRotate90DegreeLeftwiseMi":
+                return kernel(VideoUtils::NV21ToI420pWithRotate90DegreeLeftwiseMi, VideoUtilsReference::NV21ToI420pWithRotate90DegreeLeftwiseMi);
+            case "NV21ToI420pWithRotate90DegreeRightwise":
+                return kernel(VideoUtils::NV21ToI420pWithRotate90DegreeRightwise, VideoUtilsReference::NV21ToI420pWithRotate90DegreeRightwise);
+            case "NV21ToI420pWithRotate90DegreeRightwiseMi":
+                return kernel(VideoUtils::NV21ToI420pWithRotate90DegreeRightwiseMi, VideoUtilsReference::NV21ToI420pWithRotate90DegreeRightwiseMi);
+            case "NV21Rotate90DegreeLeftwise":
+                return kernel(VideoUtils::NV21Rotate90DegreeLeftwise, VideoUtilsReference::NV21Rotate90DegreeLeftwise);
+            case "NV21Rotate90DegreeLeftwiseMi":
+                return kernel(VideoUtils::NV21Rotate90DegreeLeftwiseMi, VideoUtilsReference::NV21Rotate90DegreeLeftwiseMi);
+            case "NV21Rotate90DegreeRightwise":
+                return kernel(VideoUtils::NV21Rotate90DegreeRightwise, VideoUtilsReference::NV21Rotate90DegreeRightwise);
+            case "NV21Rotate90DegreeRightwiseMi":
+                return kernel(VideoUtils::NV21Rotate90DegreeRightwiseMi, VideoUtilsReference::NV21Rotate90DegreeRightwiseMi);
+            case "NV21ToI420pWithRotate180Degree":
+                return kernel(VideoUtils::NV21ToI420pWithRotate180Degree, VideoUtilsReference::NV21ToI420pWithRotate180Degree);
+            case "NV21ToI420pWithRotate180DegreeMi":
+                return kernel(VideoUtils::NV21ToI420pWithRotate180DegreeMi, VideoUtilsReference::NV21ToI420pWithRotate180DegreeMi);
+            case "NV21Rotate180Degree":
+                return kernel(VideoUtils::NV21Rotate180Degree, VideoUtilsReference::NV21Rotate180Degree);
+            case "NV21Rotate180DegreeMi":
+                return kernel(VideoUtils::NV21Rotate180DegreeMi, VideoUtilsReference::NV21Rotate180DegreeMi);
+            case "rotateYUV420Degree90":
+                // 原始版本每次分配输出帧
+                if ("reference".equals(implementation))
+                    return (w, h, s, d) -> VideoUtilsReference.rotateYUV420Degree90(s, w, h);
+                return (w, h, s, d) -> VideoUtils.rotateYUV420Degree90(s, w, h, d);
+            default:
+                throw new IllegalArgumentException("unknown kernel " + kernel);
+        }
+    }
+
+    private Kernel kernel(Rotate transform, Rotate reference) {
+        Rotate rotate = "reference".equals(implementation) ? reference : transform;
+        return (w, h, s, d) -> {
+            rotate.run(w, h, s, d);
+            return d;
+        };
+    }
+}
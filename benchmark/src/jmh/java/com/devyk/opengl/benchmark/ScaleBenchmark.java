@@ -0,0 +1,28 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.VideoUtils;
+import com.devyk.opengl.YuvFormat;
+import com.devyk.opengl.YuvScaler;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * <pre>
+ *     desc    : This is ScaleBenchmark NV21 缩小，宽高各缩小 factor 倍（取偶数）
+ *
+ *     2 / 4 为整数倍的盒式抽取，2.5 为非整数倍的双线性（1080p -> 768x432）。
+ * </pre>
+ */
+public class ScaleBenchmark extends KernelBenchmark {
+
+    @Param({"2", "4", "2.5"})
+    public double factor;
+
+    @Override
+    Kernel createKernel() {
+        YuvScaler scaler = new YuvScaler();
+        int dstWidth = (int) (size.width / factor) & ~1;
+        int dstHeight = (int) (size.height / factor) & ~1;
+        return (w, h, s, d) -> VideoUtils.scale(scaler, YuvFormat.NV21, w, h, s, dstWidth, dstHeight, d);
+    }
+}
@@ -0,0 +1,70 @@
+package com.devyk.opengl.benchmark;
+
+import com.devyk.opengl.VideoUtils;
+import com.devyk.opengl.YuvFramePool;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * <pre>
+ *     desc    : This is VideoUtilsBenchmark VideoUtils 不旋转的格式转换
+ *
+ *     NV21ToI420pAlloc / NV21ToI420pPool 对比每帧分配与帧池借还，分配量看 gc.alloc.rate.norm。
+ * </pre>
+ */
+public class VideoUtilsBenchmark extends KernelBenchmark {
+
+    @Param({
+            "NV21ToI420p",
+            "NV21ToI420pAlloc",
+            "NV21ToI420pPool",
+            "NV21ToI420pMi",
+            "Nv21ToI420",
+            "Nv21ToYuv420SP",
+            "NV21ToNV12",
+            "changeUV"
+    })
+    public String kernel;
+
+    @Override
+    Kernel createKernel() {
+        switch (kernel) {
+            case "NV21ToI420p":
+                return VideoUtils::NV21ToI420p;
+            case "NV21ToI420pAlloc":
+                return (w, h, s, d) -> VideoUtils.NV21ToI420p(w, h, s);
+            case "NV21ToI420pPool": {
+                YuvFramePool pool = new YuvFramePool(size.width, size.height);
+                return (w, h, s, d) -> pool.release(VideoUtils.NV21ToI420p(w, h, s, pool));
+            }
+            case "NV21ToI420pMi":
+                return (w, h, s, d) -> {
+                    VideoUtils.NV21ToI420pMi(w, h, s, d);
+                    return d;
+                };
+            case "Nv21ToI420":
+                return (w, h, s, d) -> {
+                    VideoUtils.Nv21ToI420(s, d, w, h);
+                    return d;
+                };
+            case "Nv21ToYuv420SP":
+                return (w, h, s, d) -> {
+                    VideoUtils.Nv21ToYuv420SP(s, d, w, h);
+                    return d;
+                };
+            case "NV21ToNV12":
+                return (w, h, s, d) -> {
+                    VideoUtils.NV21ToNV12(s, d, w, h);
+                    return d;
+                };
+            case "changeUV":
+                // 原地交换，反复执行只是来回交换
+                return (w, h, s, d) -> {
+                    VideoUtils.changeUV(w, h, d);
+                    return d;
+                };
+            default:
+                throw new IllegalArgumentException("unknown kernel " + kernel);
+        }
+    }
+}